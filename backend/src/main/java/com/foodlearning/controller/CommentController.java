@@ -1,18 +1,17 @@
 package com.foodlearning.controller;     //Standard controller package
 
 import com.foodlearning.dto.CommentDTO;
+import com.foodlearning.dto.PageDTO;
 import com.foodlearning.entity.Comment;
-import com.foodlearning.security.JwtService;
+import com.foodlearning.security.AuthenticatedUserResolver;
 import com.foodlearning.service.CommentService;
-import com.foodlearning.repo.UserRepository;
+import com.foodlearning.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController   //Marks this as a controller that returns JSON (not views)
 @RequestMapping("/api/comments")   //Base path for all endpoints in this controller
@@ -23,10 +22,7 @@ public class CommentController {
     private CommentService commentService;  //Handles business logic for comments
 
     @Autowired
-    private JwtService jwtService;  //Handles JWT token operations
-
-    @Autowired
-    private UserRepository userRepository;  //Database access for user entities
+    private AuthenticatedUserResolver authenticatedUserResolver;  //Resolves the calling user from the JWT token
 
     @PostMapping    //Create Comment
     public ResponseEntity<?> createComment(
@@ -42,13 +38,12 @@ public class CommentController {
     }
 }
 
-    @GetMapping("/post/{postId}")   //Get Comments by Post ID
-    public ResponseEntity<List<CommentDTO>> getCommentsByPostId(@PathVariable String postId) {
-        List<Comment> comments = commentService.getCommentsByPostId(postId);
-        List<CommentDTO> commentDTOs = comments.stream()
-                .map(commentService::convertToDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(commentDTOs);
+    @GetMapping("/post/{postId}")   //Get a page of comments by Post ID, newest first
+    public ResponseEntity<PageDTO<CommentDTO>> getCommentsByPostId(
+            @PathVariable String postId,
+            @RequestParam(required = false) String cursor,  //nextCursor of the previous page
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(commentService.getCommentsPage(postId, cursor, limit));
     }
 
     @PutMapping("/{id}")   //Update Comment
@@ -74,14 +69,7 @@ public class CommentController {
 
     //Helper Method
     private String getUserIdFromAuthHeader(String authHeader) {  //Extracts user ID from JWT token in Authorization header
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid authorization header");
-        }
-        String token = authHeader.substring(7);  //Extracts the JWT token from the header
-        String email = jwtService.extractUsername(token);   //Extracts email from token
-        return userRepository.findByEmail(email) //Finds the user in the database by using this and returns the user Id
-                .orElseThrow(() -> new RuntimeException("User not found"))
-                .getId();
+        return authenticatedUserResolver.resolveUserId(authHeader);
     }
 
     //Inner Class
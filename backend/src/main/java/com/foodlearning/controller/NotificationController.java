@@ -1,14 +1,23 @@
 package com.foodlearning.controller;
 
 import com.foodlearning.dto.NotificationDTO;
-import com.foodlearning.security.JwtService;
+import com.foodlearning.dto.PageDTO;
+import com.foodlearning.security.AuthenticatedUserResolver;
+import com.foodlearning.security.StreamTicketService;
 import com.foodlearning.service.NotificationService;
-import com.foodlearning.repo.UserRepository;
+import com.foodlearning.service.NotificationStreamRegistry;
+import com.foodlearning.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -18,23 +27,22 @@ public class NotificationController {
     private NotificationService notificationService;
     
     @Autowired
-    private JwtService jwtService;
-    
+    private NotificationStreamRegistry notificationStreamRegistry;
+
     @Autowired
-    private UserRepository userRepository;
+    private AuthenticatedUserResolver authenticatedUserResolver;
 
-    @GetMapping
-    public ResponseEntity<List<NotificationDTO>> getUserNotifications(
-            @RequestHeader("Authorization") String authHeader) {
-        String userId = getUserIdFromAuthHeader(authHeader);
-        return ResponseEntity.ok(notificationService.getUserNotifications(userId));
-    }
+    @Autowired
+    private StreamTicketService streamTicketService;
 
-    @GetMapping("/unread")
-    public ResponseEntity<List<NotificationDTO>> getUnreadNotifications(
-            @RequestHeader("Authorization") String authHeader) {
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<NotificationDTO>> getNotificationPage(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "false") boolean unreadOnly) {
         String userId = getUserIdFromAuthHeader(authHeader);
-        return ResponseEntity.ok(notificationService.getUnreadNotifications(userId));
+        return ResponseEntity.ok(notificationService.getInboxPage(userId, cursor, limit, unreadOnly));
     }
 
     @GetMapping("/unread-count")
@@ -44,6 +52,27 @@ public class NotificationController {
         return ResponseEntity.ok(notificationService.getUnreadCount(userId));
     }
 
+    // Single-use ticket for opening the stream; EventSource cannot send the Authorization header
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<Map<String, String>> createStreamTicket(
+            @RequestHeader("Authorization") String authHeader) {
+        String userId = getUserIdFromAuthHeader(authHeader);
+        return ResponseEntity.ok(Map.of("ticket", streamTicketService.issue(userId)));
+    }
+
+    // Server-sent events: "notification" for each new notification, "unread-count" whenever it changes.
+    // Authenticated by a ticket from /stream-ticket, never by the JWT itself in the URL.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(@RequestParam(required = false) String ticket) {
+        String userId = streamTicketService.redeem(ticket);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        SseEmitter emitter = notificationStreamRegistry.subscribe(userId);
+        notificationService.pushUnreadCount(userId);
+        return ResponseEntity.ok(emitter);
+    }
+
     @PutMapping("/{id}/read")
     public ResponseEntity<NotificationDTO> markAsRead(
             @RequestHeader("Authorization") String authHeader,
@@ -51,22 +80,26 @@ public class NotificationController {
         return ResponseEntity.ok(notificationService.markAsRead(id));
     }
 
+    // Marks everything unread as read, optionally only up to the newest notification the client has shown
     @PutMapping("/read-all")
-    public ResponseEntity<Void> markAllAsRead(
-            @RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<Map<String, Long>> markAllAsRead(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime upTo) {
         String userId = getUserIdFromAuthHeader(authHeader);
-        notificationService.markAllAsRead(userId);
-        return ResponseEntity.noContent().build();
+        long modified = notificationService.markAllAsRead(userId, upTo);
+        return ResponseEntity.ok(Map.of("modified", modified));
+    }
+
+    @PutMapping("/read")
+    public ResponseEntity<Map<String, Long>> markSelectedAsRead(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody Map<String, List<String>> requestBody) {
+        String userId = getUserIdFromAuthHeader(authHeader);
+        long modified = notificationService.markAsRead(userId, requestBody.get("ids"));
+        return ResponseEntity.ok(Map.of("modified", modified));
     }
 
     private String getUserIdFromAuthHeader(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid authorization header");
-        }
-        String token = authHeader.substring(7);
-        String email = jwtService.extractUsername(token);
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"))
-                .getId();
+        return authenticatedUserResolver.resolveUserId(authHeader);
     }
 }
\ No newline at end of file
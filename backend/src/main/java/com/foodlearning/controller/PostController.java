@@ -1,23 +1,34 @@
 package com.foodlearning.controller;
 
-import com.mongodb.client.gridfs.model.GridFSFile;
+import com.foodlearning.dto.LikeResultDTO;
+import com.foodlearning.dto.PageDTO;
 import com.foodlearning.dto.PostDTO;
+import com.foodlearning.dto.UserSummaryDTO;
+import com.foodlearning.entity.MediaFile;
 import com.foodlearning.entity.Post;
-import com.foodlearning.repo.UserRepository;
-import com.foodlearning.security.JwtService;
+import com.foodlearning.security.AuthenticatedUserResolver;
+import com.foodlearning.service.FeedService;
 import com.foodlearning.service.FileStorageService;
+import com.foodlearning.service.ImageVariantService;
 import com.foodlearning.service.PostService;
+import com.foodlearning.util.CursorCodec;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
 
@@ -25,17 +36,22 @@ import java.util.Map;
 @RequestMapping("/api/posts")
 public class PostController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private PostService postService;
 
     @Autowired
-    private JwtService jwtService;
+    private AuthenticatedUserResolver authenticatedUserResolver;
 
     @Autowired
     private FileStorageService fileStorageService;
 
     @Autowired
-    private UserRepository userRepository;
+    private FeedService feedService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<PostDTO> createPost(
@@ -50,33 +66,82 @@ public class PostController {
     }
 
     @GetMapping
-    public ResponseEntity<List<PostDTO>> getAllPosts() {
+    public ResponseEntity<List<PostDTO>> getAllPosts(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        String viewerId = authenticatedUserResolver.resolveUserIdOrNull(authHeader);
         List<Post> posts = postService.getAllPosts();
-        List<PostDTO> postDTOs = posts.stream()
-                .map(postService::convertToDTO)
-                .toList();
-        return ResponseEntity.ok(postDTOs);
+        return ResponseEntity.ok(postService.convertToDTOs(posts, viewerId));
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<PageDTO<PostDTO>> getFeed(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit) {
+        String viewerId = authenticatedUserResolver.resolveUserIdOrNull(authHeader);
+        return ResponseEntity.ok(postService.getFeedPage(cursor, limit, viewerId));
+    }
+
+    // Feed cards with authors, like state, comment counts and newest comments in one response
+    @GetMapping("/feed/enriched")
+    public ResponseEntity<PageDTO<PostDTO>> getEnrichedFeed(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "3") int comments) {
+        String viewerId = authenticatedUserResolver.resolveUserIdOrNull(authHeader);
+        return ResponseEntity.ok(feedService.getFeedPage(cursor, limit, viewerId, comments));
+    }
+
+    @GetMapping("/timeline")
+    public ResponseEntity<PageDTO<PostDTO>> getTimeline(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit) {
+        String userId = getUserIdFromAuthHeader(authHeader);
+        return ResponseEntity.ok(postService.getTimelinePage(userId, cursor, limit));
+    }
+
+    @GetMapping("/timeline/enriched")
+    public ResponseEntity<PageDTO<PostDTO>> getEnrichedTimeline(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "3") int comments) {
+        String userId = getUserIdFromAuthHeader(authHeader);
+        return ResponseEntity.ok(feedService.getTimelinePage(userId, cursor, limit, comments));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PostDTO> getPostById(@PathVariable String id) {
+    public ResponseEntity<PostDTO> getPostById(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @PathVariable String id) {
+        String viewerId = authenticatedUserResolver.resolveUserIdOrNull(authHeader);
         Post post = postService.getPostById(id);
-        return ResponseEntity.ok(postService.convertToDTO(post));
+        return ResponseEntity.ok(postService.convertToDTO(post, viewerId));
+    }
+
+    @GetMapping("/{postId}/likes")
+    public ResponseEntity<PageDTO<UserSummaryDTO>> getLikers(
+            @PathVariable String postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(postService.getLikers(postId, cursor, limit));
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<PostDTO>> getPostsByUser(@PathVariable String userId) {
+    public ResponseEntity<List<PostDTO>> getPostsByUser(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @PathVariable String userId) {
+        String viewerId = authenticatedUserResolver.resolveUserIdOrNull(authHeader);
         List<Post> posts = postService.getPostsByUserId(userId);
-        List<PostDTO> postDTOs = posts.stream()
-                .map(postService::convertToDTO)
-                .toList();
-        return ResponseEntity.ok(postDTOs);
+        return ResponseEntity.ok(postService.convertToDTOs(posts, viewerId));
     }
 
     @GetMapping("/me")
     public ResponseEntity<List<PostDTO>> getMyPosts(@RequestHeader("Authorization") String authHeader) {
         String userId = getUserIdFromAuthHeader(authHeader);
-        return getPostsByUser(userId);
+        return getPostsByUser(authHeader, userId);
     }
 
     @PutMapping("/{id}")
@@ -86,7 +151,7 @@ public class PostController {
         @RequestBody Map<String, String> requestBody) {  // Changed from @RequestParam to @RequestBody
         
     String userId = getUserIdFromAuthHeader(authHeader);
-    Post post = postService.getPostById(id);
+    Post post = postService.getPostById(id); // owner check, usually served from the post cache
     
     if (!post.getUserId().equals(userId)) {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -114,69 +179,125 @@ public class PostController {
     }
 
     @PostMapping("/{postId}/like")
-    public ResponseEntity<PostDTO> likePost(
+    public ResponseEntity<LikeResultDTO> likePost(
             @RequestHeader("Authorization") String authHeader,
             @PathVariable String postId) {
         
         String userId = getUserIdFromAuthHeader(authHeader);
-        Post post = postService.likePost(postId, userId);
-        return ResponseEntity.ok(postService.convertToDTO(post));
+        return ResponseEntity.ok(postService.likePost(postId, userId));
     }
 
     @PostMapping("/{postId}/unlike")
-    public ResponseEntity<PostDTO> unlikePost(
+    public ResponseEntity<LikeResultDTO> unlikePost(
             @RequestHeader("Authorization") String authHeader,
             @PathVariable String postId) {
         
         String userId = getUserIdFromAuthHeader(authHeader);
-        Post post = postService.unlikePost(postId, userId);
-        return ResponseEntity.ok(postService.convertToDTO(post));
+        return ResponseEntity.ok(postService.unlikePost(postId, userId));
     }
 
     
 
-   @GetMapping("/media/{fileId}")
-    public ResponseEntity<byte[]> getMedia(@PathVariable String fileId) {
-        try {
-         GridFSFile file = fileStorageService.getGridFsFile(fileId);
-         if (file == null) {
+    // Streams the stored file straight to the response. A Range request is answered with 206 from
+    // a ranged read of the backend, and conditional requests are resolved from the catalog alone.
+    // ?variant=thumb|feed|full serves a resized copy of an image; the original is served
+    // while the variant is still being generated, with a short cache lifetime
+    @GetMapping("/media/{fileId}")
+    public ResponseEntity<Resource> getMedia(@PathVariable String fileId,
+                                             @RequestParam(required = false) String variant,
+                                             WebRequest webRequest,
+                                             HttpServletRequest request) throws IOException {
+        if (variant != null && !ImageVariantService.VARIANTS.containsKey(variant)) {
+            return ResponseEntity.badRequest().build();
+        }
+        MediaFile file = variant != null ? fileStorageService.getVariantFile(fileId, variant) : null;
+        boolean fallback = variant != null && file == null;
+        if (file == null) {
+            file = fileStorageService.getMediaFile(fileId);
+        }
+        if (file == null) {
             return ResponseEntity.notFound().build();
-            }
-
-        GridFsResource resource = fileStorageService.getGridFsResource(file);
-        InputStream inputStream = resource.getInputStream();
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        int nRead;
-        byte[] data = new byte[4096];
+        }
 
-        while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-            buffer.write(data, 0, nRead);
+        // Stored files are immutable, so id + length is a stable validator
+        String eTag = "\"" + file.getId() + "-" + file.getLength() + "\"";
+        long lastModified = file.getUploadedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
         }
 
-        buffer.flush();
-        byte[] fileBytes = buffer.toByteArray();
+        long length = file.getLength();
+        long[] span = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0) {
+            span = requestedSpan(rangeHeader, length);
+            if (span == null) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+        }
 
-        String contentType = resource.getContentType();
-        return ResponseEntity.ok()
+        String contentType = file.getContentType();
+        HttpStatus status = span != null ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK;
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
                 .contentType(MediaType.parseMediaType(
-                        contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE
-                ))
-                .body(fileBytes);
-    } catch (IOException e) {
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                        contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE))
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .cacheControl(fallback
+                        ? CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic()
+                        : CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .eTag(eTag)
+                .lastModified(lastModified);
+        long start = 0;
+        long end = length - 1;
+        if (span != null) {
+            start = span[0];
+            end = span[1];
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        // Locally stored media is handed to Tomcat's sendfile, which copies from the page cache
+        // to the socket with FileChannel.transferTo instead of through the heap
+        Path localPath = fileStorageService.localPath(file);
+        if (localPath != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, localPath.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return response.contentLength(end - start + 1).build();
         }
-    }
 
+        Resource resource = span != null
+                ? fileStorageService.loadRange(file, start, end)
+                : fileStorageService.loadResource(file);
+        if (resource == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return response.body(resource);
+    }
 
+    // First and last byte to serve for a Range header, or null if no range is satisfiable. Several
+    // ranges are coalesced into the one span covering them, so every backend needs a single read
+    private static long[] requestedSpan(String rangeHeader, long length) {
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        long start = Long.MAX_VALUE;
+        long end = -1;
+        for (HttpRange range : ranges) {
+            long rangeStart = range.getRangeStart(length);
+            if (rangeStart < length) {
+                start = Math.min(start, rangeStart);
+                end = Math.max(end, range.getRangeEnd(length));
+            }
+        }
+        return end >= start ? new long[] {start, end} : null;
+    }
 
     private String getUserIdFromAuthHeader(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid authorization header");
-        }
-        String token = authHeader.substring(7);
-        String email = jwtService.extractUsername(token);
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"))
-                .getId();
+        return authenticatedUserResolver.resolveUserId(authHeader);
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.foodlearning.controller;
+
+import com.foodlearning.dto.PageDTO;
+import com.foodlearning.dto.SearchHitDTO;
+import com.foodlearning.service.SearchService;
+import com.foodlearning.util.CursorCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @Autowired
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // Relevance-ranked results; type is post, plan or user, omitted for all three
+    @GetMapping
+    public ResponseEntity<PageDTO<SearchHitDTO>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(searchService.search(q, type, cursor, limit));
+    }
+
+    // Typeahead over user and learning plan names
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SearchHitDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "" + SearchService.MAX_SUGGESTIONS) int limit) {
+        return ResponseEntity.ok(searchService.suggest(prefix, limit));
+    }
+}
@@ -5,9 +5,17 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.foodlearning.dto.FollowResultDTO;
+import com.foodlearning.dto.PageDTO;
+import com.foodlearning.dto.UserSummaryDTO;
 import com.foodlearning.entity.User;
+import com.foodlearning.exception.InvalidUserDataException;
+import com.foodlearning.security.AuthenticatedUserResolver;
 import com.foodlearning.security.JwtService;
+import com.foodlearning.service.FollowService;
 import com.foodlearning.service.UserService;
+import com.foodlearning.service.UserSummaryService;
+import com.foodlearning.util.CursorCodec;
 
 import java.util.List;
 
@@ -15,13 +23,23 @@ import java.util.List;
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int MAX_SUMMARY_IDS = 100;
+
     private final UserService userService;
     private final JwtService jwtService;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+    private final FollowService followService;
+    private final UserSummaryService userSummaryService;
 
     @Autowired
-    public UserController(UserService userService, JwtService jwtService) {
+    public UserController(UserService userService, JwtService jwtService,
+                          AuthenticatedUserResolver authenticatedUserResolver, FollowService followService,
+                          UserSummaryService userSummaryService) {
         this.userService = userService;
         this.jwtService = jwtService;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        this.followService = followService;
+        this.userSummaryService = userSummaryService;
     }
 
     @PostMapping
@@ -30,9 +48,20 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    // Paginated user directory; compact summaries only, never full User documents
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<PageDTO<UserSummaryDTO>> getUserDirectory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(userSummaryService.getDirectoryPage(cursor, limit));
+    }
+
+    @GetMapping("/summaries")
+    public ResponseEntity<List<UserSummaryDTO>> getUserSummaries(@RequestParam List<String> ids) {
+        if (ids.size() > MAX_SUMMARY_IDS) {
+            throw new InvalidUserDataException("At most " + MAX_SUMMARY_IDS + " ids per request");
+        }
+        return ResponseEntity.ok(userSummaryService.getSummariesInOrder(ids));
     }
 
     @GetMapping("/{id}")
@@ -95,9 +124,43 @@ public class UserController {
         }
     }
 
+    @PostMapping("/follow/{userId}")
+    public ResponseEntity<FollowResultDTO> followUser(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable String userId) {
+        String followerId = authenticatedUserResolver.resolveUserId(authHeader);
+        return ResponseEntity.ok(followService.follow(followerId, userId));
+    }
+
+    @PostMapping("/unfollow/{userId}")
+    public ResponseEntity<FollowResultDTO> unfollowUser(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable String userId) {
+        String followerId = authenticatedUserResolver.resolveUserId(authHeader);
+        return ResponseEntity.ok(followService.unfollow(followerId, userId));
+    }
+
+    @GetMapping("/{id}/followers")
+    public ResponseEntity<PageDTO<UserSummaryDTO>> getFollowers(
+            @PathVariable String id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(followService.getFollowers(id, cursor, limit));
+    }
+
+    @GetMapping("/{id}/following")
+    public ResponseEntity<PageDTO<UserSummaryDTO>> getFollowing(
+            @PathVariable String id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(followService.getFollowing(id, cursor, limit));
+    }
+
     // DEBUG: List all users (temporary endpoint)
     @GetMapping("/debug/all")
-    public ResponseEntity<List<User>> getAllUsersDebug() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<PageDTO<UserSummaryDTO>> getAllUsersDebug(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorCodec.MAX_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(userSummaryService.getDirectoryPage(cursor, limit));
     }
 }
@@ -0,0 +1,10 @@
+package com.foodlearning.dto;
+
+import lombok.Data;
+
+@Data
+public class FollowResultDTO {
+    private String userId; // the followed/unfollowed user
+    private boolean following; // follow state of the requesting user after the call
+    private long followerCount;
+}
@@ -0,0 +1,10 @@
+package com.foodlearning.dto;
+
+import lombok.Data;
+
+@Data
+public class LikeResultDTO {
+    private String postId;
+    private int likesCount;
+    private boolean liked; // like state of the requesting user after the call
+}
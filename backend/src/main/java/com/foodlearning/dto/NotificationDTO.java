@@ -2,6 +2,7 @@ package com.foodlearning.dto;
 
 import lombok.Data;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 public class NotificationDTO {
@@ -14,4 +15,6 @@ public class NotificationDTO {
     private String relatedEntityId;
     private boolean read;  // Changed from isRead to read
     private LocalDateTime createdAt;
+    private int count; // > 1 when several likes/comments were coalesced into this entry
+    private List<String> recentSenderIds;
 } 
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.foodlearning.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+public class PageDTO<T> {
+    private List<T> items;
+    private String nextCursor; // opaque token for the next page, null on the last page
+    private boolean hasMore;
+
+    // rows must be fetched with pageSize + 1 so we can tell whether another page exists
+    public static <E, T> PageDTO<T> of(List<E> rows, int pageSize, Function<E, String> cursorOf,
+                                       Function<List<E>, List<T>> converter) {
+        boolean hasMore = rows.size() > pageSize;
+        List<E> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        PageDTO<T> dto = new PageDTO<>();
+        dto.setItems(converter.apply(page));
+        dto.setHasMore(hasMore);
+        dto.setNextCursor(hasMore ? cursorOf.apply(page.get(page.size() - 1)) : null);
+        return dto;
+    }
+}
@@ -1,6 +1,5 @@
 package com.foodlearning.dto;
 
-import com.foodlearning.entity.Post;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -11,10 +10,15 @@ public class PostDTO {
     private String id;
     private String userId;
     private String content;
-    private List<String> imageUrls;
+    private List<String> imageUrls; // feed-sized variants
+    private List<String> thumbnailUrls;
+    private List<String> fullImageUrls;
     private String videoUrl;
     private int likesCount;
-    private List<String> likedBy;
-    private List<Post.Comment> comments;
+    private boolean likedByMe; // whether the requesting user liked this post
+    private int commentCount;
+    private String authorName;
+    private String authorPhoto;
+    private List<CommentDTO> previewComments; // newest comments, only set by the enriched feed
     private LocalDateTime createdAt;
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.foodlearning.dto;
+
+import lombok.Data;
+
+@Data
+public class SearchHitDTO {
+    private String type; // post, plan or user
+    private String id;
+    private String title; // plan or user name; null for posts
+    private String snippet; // start of the post content, plan description or user bio
+    private String photo; // users only
+    private String userId; // owner of a post or plan
+    private double score; // text relevance (scaled to the best hit of its type in mixed results), 0 for typeahead suggestions
+}
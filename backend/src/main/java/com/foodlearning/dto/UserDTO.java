@@ -4,7 +4,6 @@ import lombok.Data;
 
 import java.util.List;
 
-import com.foodlearning.entity.FollowInfo;
 import com.foodlearning.entity.LearningPlan;
 
 @Data
@@ -13,7 +12,7 @@ public class UserDTO {
     private String email;
     private String name;
     private String password;
-    private List<FollowInfo> followers;
-    private List<FollowInfo> following;
+    private long followerCount;
+    private long followingCount;
     private List<LearningPlan> learningPlans;
 }
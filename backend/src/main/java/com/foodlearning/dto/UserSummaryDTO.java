@@ -0,0 +1,12 @@
+package com.foodlearning.dto;
+
+import lombok.Data;
+
+@Data
+public class UserSummaryDTO {
+    private String id;
+    private String name;
+    private String photo;
+    private long followerCount;
+    private long followingCount;
+}
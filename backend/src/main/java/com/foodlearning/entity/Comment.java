@@ -2,16 +2,22 @@ package com.foodlearning.entity;  //Standard package for entity classes
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Data                               //from Lombok (generates getters, setters, toString, etc.)
 @Document(collection = "comments")  //Specifies this entity maps to a MongoDB collection named "comments"
+@CompoundIndex(name = "post_comments_idx", def = "{'postId': 1, 'createdAt': -1, '_id': -1}")  //Serves the per-post comment pages
 public class Comment {
     @Id                        //Marks the field id as the Primary Key
     private String id;
     private String postId;
+    @Indexed(name = "user_idx")  //Lets profile changes find the author's comments
     private String userId;
+    private String authorName;  //Author name and photo copied at write time, see AuthorProfilePropagator
+    private String authorPhoto;
     private String content;
     private LocalDateTime createdAt;
 }
\ No newline at end of file
@@ -1,9 +0,0 @@
-package com.foodlearning.entity;
-
-import lombok.Data;
-
-@Data
-public class FollowInfo {
-    private String id;
-    private String name;
-}
@@ -1,10 +1,14 @@
 package com.foodlearning.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
+import java.util.Locale;
 
 @Data
 @Document(collection = "learningplans")
@@ -13,12 +17,25 @@ public class LearningPlan {
     @Id
     private String id;
 
+    @TextIndexed(weight = 10)
     private String name;
+    @TextIndexed(weight = 2)
     private String description;
+    @TextIndexed(weight = 5)
     private List<String> topics;
     private List<String> resources;
     private String userId;
 
+    // Lowercased copy of name for anchored-prefix typeahead lookups
+    @JsonIgnore
+    @Indexed(name = "name_lower_idx")
+    private String nameLower;
+
+    public void setName(String name) {
+        this.name = name;
+        this.nameLower = name != null ? name.toLowerCase(Locale.ROOT) : null;
+    }
+
     @Override
     public String toString() {
         return "LearningPlan{" +
@@ -0,0 +1,35 @@
+package com.foodlearning.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Catalog entry for an uploaded file or image variant. The bytes live in the MediaStorage
+// backend named by `backend`, under this entry's id.
+@Data
+@Document(collection = "media_files")
+@CompoundIndexes({
+        @CompoundIndex(name = "variant_lookup_idx", def = "{'originalId': 1, 'variant': 1}")
+})
+public class MediaFile {
+    @Id
+    private String id;
+    private String filename;
+    private String contentType;
+    private long length;
+    private String userId;
+    @Indexed(name = "content_hash_idx")
+    private String sha256;
+    private int refCount; // posts referencing this file; deleted when it drops to zero
+    private String backend;
+    private String originalId; // image variants only
+    private String variant;
+    private Integer width;
+    private Integer height;
+    private LocalDateTime uploadedAt;
+}
@@ -2,19 +2,40 @@ package com.foodlearning.entity;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Document(collection = "notifications")
+@CompoundIndexes({
+        @CompoundIndex(name = "inbox_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "unread_idx", def = "{'userId': 1, 'isRead': 1, 'createdAt': -1, '_id': -1}")
+})
 public class Notification {
     @Id  //Marks the is as the primary key
     private String id;
     private String userId; // recipient user ID
-    private String senderId; // user who triggered the notification
+    private String senderId; // user who triggered the notification (latest one for aggregated entries)
     private String type; // like, comment
     private String message;  //Contains the content or description of the notification
     private String relatedEntityId; // ID of post/comment
-    private boolean isRead;  
+    @Field("isRead") // stored name predates the property; keeps derived "Read" queries on the real field
+    private boolean read;
     private LocalDateTime createdAt;
-} 
\ No newline at end of file
+    // Set when read; the TTL index ages read notifications out after the retention period
+    @Indexed(name = "read_ttl_idx",
+            expireAfter = "#{@environment.getProperty('notifications.retention.read-ttl', '30d')}")
+    private LocalDateTime readAt;
+
+    // Aggregated entries: one rolling document per (recipient, type, entity, time window)
+    @Indexed(unique = true, sparse = true)
+    private String groupKey;
+    private int count = 1; // number of events folded into this notification
+    private List<String> recentSenderIds; // most recent senders, oldest first
+} 
@@ -3,6 +3,9 @@ package com.foodlearning.entity;
 import lombok.Data;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -11,23 +14,22 @@ import java.util.List;
 
 @Data
 @Document(collection = "posts")
+@CompoundIndexes({
+        @CompoundIndex(name = "feed_idx", def = "{'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_feed_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+})
 public class Post {
     @Id
     private String id;
     private String userId;
+    private String authorName; // copied from the author when written, kept current by AuthorProfilePropagator
+    private String authorPhoto;
+    @TextIndexed
     private String content;
     private List<String> imageIds = new ArrayList<>();
     private String videoId;
-    private int likesCount = 0;
-    private List<String> likedBy = new ArrayList<>();
-    private List<Comment> comments = new ArrayList<>();
+    private int likesCount = 0; // denormalized count of post_likes rows
+    private int commentCount = 0; // denormalized count of comments rows
     @CreatedDate
     private LocalDateTime createdAt;
-
-    @Data
-    public static class Comment {
-        private String userId;
-        private String content;
-        private LocalDateTime createdAt;
-    }
 }
\ No newline at end of file
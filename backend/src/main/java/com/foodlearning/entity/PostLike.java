@@ -0,0 +1,24 @@
+package com.foodlearning.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@Document(collection = "post_likes")
+@CompoundIndexes({
+        @CompoundIndex(name = "post_user_unique", def = "{'postId': 1, 'userId': 1}", unique = true),
+        @CompoundIndex(name = "post_likers_idx", def = "{'postId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_likes_idx", def = "{'userId': 1, 'postId': 1}")
+})
+public class PostLike {
+    @Id
+    private String id;
+    private String postId;
+    private String userId; // user who liked the post
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,27 @@
+package com.foodlearning.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Precomputed home timeline: one capped, newest-first bucket of post references per user
+@Data
+@Document(collection = "timelines")
+@CompoundIndex(name = "entries_post_idx", def = "{'entries.postId': 1}")
+public class Timeline {
+    @Id
+    private String id; // owner's user ID
+    private List<Entry> entries = new ArrayList<>();
+
+    @Data
+    public static class Entry {
+        private String postId;
+        private String authorId;
+        private LocalDateTime createdAt;
+    }
+}
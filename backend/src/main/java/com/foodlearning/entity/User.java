@@ -1,7 +1,11 @@
 package com.foodlearning.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,6 +13,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 
 @Data
 @Document(collection = "user")
@@ -17,15 +22,29 @@ public class User implements UserDetails {
     private String id;
     @NotBlank(message = "Email is required")
     private String email;
+    @TextIndexed(weight = 10)
     private String name;
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // accepted on create/update, never serialized
     private String password;
+    @TextIndexed
     private String bio;
     private String photo;
 
-    private List<FollowInfo> followers = new ArrayList<>();
-    private List<FollowInfo> following = new ArrayList<>();
+    // Maintained with $inc by FollowService; the edges themselves live in the follows collection
+    private long followerCount;
+    private long followingCount;
     private List<String> learningPlanIds = new ArrayList<>();
 
+    // Lowercased copy of name for anchored-prefix typeahead lookups
+    @JsonIgnore
+    @Indexed(name = "name_lower_idx")
+    private String nameLower;
+
+    public void setName(String name) {
+        this.name = name;
+        this.nameLower = name != null ? name.toLowerCase(Locale.ROOT) : null;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of();
@@ -65,8 +84,8 @@ public class User implements UserDetails {
                 ", password='" + password + '\'' +
                 ", bio='" + bio + '\'' +
                 ", photo='" + photo + '\'' +
-                ", followers=" + followers +
-                ", following=" + following +
+                ", followerCount=" + followerCount +
+                ", followingCount=" + followingCount +
                 ", learningPlanIds=" + learningPlanIds +
                 '}';
     }
@@ -0,0 +1,13 @@
+package com.foodlearning.exception;
+
+import java.io.Serial;
+
+public class InvalidSearchQueryException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public InvalidSearchQueryException(String message) {
+        super(message);
+    }
+}
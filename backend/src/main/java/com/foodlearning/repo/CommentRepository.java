@@ -1,11 +1,25 @@
 package com.foodlearning.repo; //Standard package for repository interfaces
 
 import com.foodlearning.entity.Comment;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface CommentRepository extends MongoRepository<Comment, String> {
-    List<Comment> findByPostIdOrderByCreatedAtDesc(String postId); // Finds all comments for a specific post
+    @Query(value = "{ 'postId': ?0 }", sort = "{ 'createdAt': -1, '_id': -1 }")
+    Stream<Comment> streamByPost(String postId, Pageable pageable); // Newest comments of a post (post_comments_idx)
+
+    @Query(value = "{ 'postId': ?0, '$or': [ { 'createdAt': { '$lt': ?1 } }, { 'createdAt': ?1, '_id': { '$lt': ?2 } } ] }",
+            sort = "{ 'createdAt': -1, '_id': -1 }")
+    Stream<Comment> streamByPostAfter(String postId, LocalDateTime createdAt, ObjectId id, Pageable pageable); // Next page after the cursor
+
+    long countByPostId(String postId); // Number of comments on a post
+
+    void deleteByPostId(String postId); // Removes all comments of a deleted post
 
     List<Comment> findByUserId(String userId); // Finds all comments made by a specific user
-}
\ No newline at end of file
+}
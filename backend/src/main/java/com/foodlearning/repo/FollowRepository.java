@@ -0,0 +1,43 @@
+package com.foodlearning.repo;
+
+import com.foodlearning.entity.Follow;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface FollowRepository extends MongoRepository<Follow, String> {
+
+    long deleteByFollowerIdAndFolloweeId(String followerId, String followeeId);
+
+    void deleteByFollowerIdOrFolloweeId(String followerId, String followeeId);
+
+    // Followers of a user, newest first (followee_idx)
+    @Query(value = "{ 'followeeId': ?0 }", sort = "{ 'createdAt': -1, '_id': -1 }")
+    Stream<Follow> streamFollowers(String followeeId, Pageable pageable);
+
+    @Query(value = "{ 'followeeId': ?0, '$or': [ { 'createdAt': { '$lt': ?1 } }, { 'createdAt': ?1, '_id': { '$lt': ?2 } } ] }",
+            sort = "{ 'createdAt': -1, '_id': -1 }")
+    Stream<Follow> streamFollowersAfter(String followeeId, LocalDateTime createdAt, ObjectId id, Pageable pageable);
+
+    // Users a user follows, newest first (follower_idx)
+    @Query(value = "{ 'followerId': ?0 }", sort = "{ 'createdAt': -1, '_id': -1 }")
+    Stream<Follow> streamFollowing(String followerId, Pageable pageable);
+
+    @Query(value = "{ 'followerId': ?0, '$or': [ { 'createdAt': { '$lt': ?1 } }, { 'createdAt': ?1, '_id': { '$lt': ?2 } } ] }",
+            sort = "{ 'createdAt': -1, '_id': -1 }")
+    Stream<Follow> streamFollowingAfter(String followerId, LocalDateTime createdAt, ObjectId id, Pageable pageable);
+
+    // All follower ids, for timeline fan-out
+    @Query(value = "{ 'followeeId': ?0 }", fields = "{ 'followerId': 1 }")
+    Stream<Follow> streamFollowerIds(String followeeId);
+
+    @Query(value = "{ 'followerId': ?0 }", fields = "{ 'followeeId': 1 }")
+    List<Follow> findFolloweeIds(String followerId);
+}
@@ -2,11 +2,7 @@ package com.foodlearning.repo;
 
 import com.foodlearning.entity.Notification;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import java.util.List;
 
 public interface NotificationRepository extends MongoRepository<Notification, String> {
-    List<Notification> findByUserIdOrderByCreatedAtDesc(String userId);
-    List<Notification> findByUserIdAndReadFalseOrderByCreatedAtDesc(String userId);
     long countByUserIdAndReadFalse(String userId);
-    List<Notification> findByUserIdAndReadFalse(String userId);
 } 
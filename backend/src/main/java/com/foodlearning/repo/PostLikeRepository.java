@@ -0,0 +1,34 @@
+package com.foodlearning.repo;
+
+import com.foodlearning.entity.PostLike;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface PostLikeRepository extends MongoRepository<PostLike, String> {
+
+    long deleteByPostIdAndUserId(String postId, String userId);
+
+    void deleteByPostId(String postId);
+
+    boolean existsByPostIdAndUserId(String postId, String userId);
+
+    // Which of the given posts has this user liked (served by user_likes_idx)
+    @Query(value = "{ 'userId': ?0, 'postId': { '$in': ?1 } }", fields = "{ 'postId': 1 }")
+    List<PostLike> findLikedPostIds(String userId, Collection<String> postIds);
+
+    @Query(value = "{ 'postId': ?0 }", sort = "{ 'createdAt': -1, '_id': -1 }")
+    Stream<PostLike> streamLikers(String postId, Pageable pageable);
+
+    @Query(value = "{ 'postId': ?0, '$or': [ { 'createdAt': { '$lt': ?1 } }, { 'createdAt': ?1, '_id': { '$lt': ?2 } } ] }",
+            sort = "{ 'createdAt': -1, '_id': -1 }")
+    Stream<PostLike> streamLikersAfter(String postId, LocalDateTime createdAt, ObjectId id, Pageable pageable);
+}
@@ -1,14 +1,27 @@
 package com.foodlearning.repo;
 
 import com.foodlearning.entity.Post;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PostRepository extends MongoRepository<Post, String> {
     List<Post> findByUserIdOrderByCreatedAtDesc(String userId);
 
     List<Post> findAllByOrderByCreatedAtDesc();
+
+    // Keyset feed: newest first, ties on createdAt broken by _id (backed by feed_idx)
+    @Query(value = "{}", sort = "{ 'createdAt': -1, '_id': -1 }")
+    Stream<Post> streamFeed(Pageable pageable);
+
+    @Query(value = "{ '$or': [ { 'createdAt': { '$lt': ?0 } }, { 'createdAt': ?0, '_id': { '$lt': ?1 } } ] }",
+            sort = "{ 'createdAt': -1, '_id': -1 }")
+    Stream<Post> streamFeedAfter(LocalDateTime createdAt, ObjectId id, Pageable pageable);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.foodlearning.repo;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.foodlearning.entity.User;
@@ -12,4 +13,8 @@ public interface UserRepository extends MongoRepository<User, String> {
 
     boolean existsByEmail(String email);
     Optional<User> findByEmail(String email);
+
+    // Loads only the _id, for request authentication
+    @Query(value = "{ 'email': ?0 }", fields = "{ '_id': 1 }")
+    Optional<User> findIdByEmail(String email);
 }
@@ -0,0 +1,26 @@
+package com.foodlearning.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Hit/miss counters of the auth principal cache at /actuator/authcache
+@Component
+@Endpoint(id = "authcache")
+public class AuthCacheEndpoint {
+
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+
+    @Autowired
+    public AuthCacheEndpoint(AuthenticatedUserResolver authenticatedUserResolver) {
+        this.authenticatedUserResolver = authenticatedUserResolver;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return authenticatedUserResolver.stats();
+    }
+}
@@ -0,0 +1,93 @@
+package com.foodlearning.security;
+
+import com.foodlearning.entity.User;
+import com.foodlearning.repo.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Resolves the calling user from a "Bearer" Authorization header, caching email -> userId
+// so authenticated endpoints don't hit the user collection on every request
+@Service
+public class AuthenticatedUserResolver {
+
+    private final JwtService jwtService;
+    private final UserRepository userRepository;
+    private final Cache<String, String> userIdsByEmail;
+
+    @Autowired
+    public AuthenticatedUserResolver(JwtService jwtService, UserRepository userRepository,
+                                     @Value("${auth.principal-cache.max-size:10000}") long maxSize,
+                                     @Value("${auth.principal-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.userIdsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public String resolveEmail(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new RuntimeException("Invalid authorization header");
+        }
+        return jwtService.extractUsername(authHeader.substring(7));
+    }
+
+    public String resolveUserId(String authHeader) {
+        String userId = lookupUserId(resolveEmail(authHeader));
+        if (userId == null) {
+            throw new RuntimeException("User not found");
+        }
+        return userId;
+    }
+
+    // For endpoints that work anonymously but personalise the response when a token is sent.
+    // Expired or invalid tokens and deleted users get the anonymous view instead of an error.
+    public String resolveUserIdOrNull(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return lookupUserId(jwtService.extractUsername(authHeader.substring(7)));
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Unknown emails load as null, which Caffeine does not cache
+    private String lookupUserId(String email) {
+        return userIdsByEmail.get(email,
+                key -> userRepository.findIdByEmail(key).map(User::getId).orElse(null));
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            userIdsByEmail.invalidate(email);
+        }
+    }
+
+    public void invalidateUserId(String userId) {
+        userIdsByEmail.asMap().values().removeIf(userId::equals);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = userIdsByEmail.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", userIdsByEmail.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
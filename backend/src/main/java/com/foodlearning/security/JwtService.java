@@ -1,6 +1,9 @@
 package com.foodlearning.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import javax.crypto.SecretKey;
 import io.jsonwebtoken.security.Keys;
@@ -8,6 +11,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -16,25 +20,57 @@ import java.util.function.Function;
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secret;
-
     // Token validity in milliseconds (e.g., 10 hours)
     private final long JWT_TOKEN_VALIDITY = 10 * 60 * 60 * 1000;
 
+    // Derived once; both the key and the built parser are immutable and thread-safe
+    private final SecretKey key;
+    private final JwtParser parser;
+
+    // Tokens that already passed signature verification, keyed by their signature segment
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtService(@Value("${jwt.secret}") String secret,
+                      @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheSize,
+                      @Value("${jwt.verified-cache.ttl-seconds:300}") long verifiedCacheTtlSeconds) {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfterWrite(Duration.ofSeconds(verifiedCacheTtlSeconds))
+                .build();
+    }
+
+    // Verifies the token and returns subject, expiry and claims from a single parse
+    public ParsedToken parseToken(String token) {
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        VerifiedToken cached = verifiedTokens.getIfPresent(signature);
+        // The signature alone is not enough: the signed header and payload must match too
+        if (cached != null && cached.token().equals(token)) {
+            if (!cached.parsed().isExpired()) {
+                return cached.parsed();
+            }
+            verifiedTokens.invalidate(signature);
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        ParsedToken parsed = new ParsedToken(claims.getSubject(), claims.getExpiration(), claims);
+        verifiedTokens.put(signature, new VerifiedToken(token, parsed));
+        return parsed;
+    }
+
     // Retrieve username from jwt token
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseToken(token).subject();
     }
 
     // Retrieve expiration date from jwt token
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return parseToken(token).expiration();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(parseToken(token).claims());
     }
 
     // Generate token for user
@@ -45,31 +81,21 @@ public class JwtService {
 
     // Validate token
     public boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        ParsedToken parsed = parseToken(token);
+        return (parsed.subject().equals(username) && !parsed.isExpired());
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .claims(claims)
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY))
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + JWT_TOKEN_VALIDITY))
                 .signWith(key)
                 .compact();
     }
 
-    private Claims extractAllClaims(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private record VerifiedToken(String token, ParsedToken parsed) {
     }
 }
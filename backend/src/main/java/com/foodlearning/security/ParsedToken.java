@@ -0,0 +1,13 @@
+package com.foodlearning.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+// Result of verifying a JWT once: subject, expiry and the full claim set
+public record ParsedToken(String subject, Date expiration, Claims claims) {
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
@@ -16,8 +16,11 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(auth -> auth
+                        // Operational endpoints (cache and pipeline stats) need a logged-in session
+                        .requestMatchers("/actuator/**").authenticated()
                         .requestMatchers("/", "/api/users/**", "/api/learningplans/**", "/api/learning-progress/**",
-                                "/api/auth/**", "/api/posts/**", "/api/comments/**", "/api/notifications/**")
+                                "/api/auth/**", "/api/posts/**", "/api/comments/**", "/api/notifications/**",
+                                "/api/search/**")
                         .permitAll()
                         .anyRequest().authenticated())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
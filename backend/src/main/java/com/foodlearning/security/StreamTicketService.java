@@ -0,0 +1,47 @@
+package com.foodlearning.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+// Short-lived, single-use tickets for the notification stream. EventSource cannot send an
+// Authorization header, so the client trades its JWT for a ticket in an authenticated POST and
+// puts only the ticket in the stream URL, where it may end up in access logs and history.
+// Tickets live in this instance's memory, like the stream registry they are redeemed against.
+@Service
+public class StreamTicketService {
+
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, String> userIdsByTicket;
+
+    @Autowired
+    public StreamTicketService(@Value("${notifications.stream.ticket-ttl-seconds:30}") long ttlSeconds,
+                               @Value("${notifications.stream.ticket-max-outstanding:10000}") long maxOutstanding) {
+        this.userIdsByTicket = Caffeine.newBuilder()
+                .maximumSize(maxOutstanding)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public String issue(String userId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        userIdsByTicket.put(ticket, userId);
+        return ticket;
+    }
+
+    // The user the ticket was issued to, or null if it is unknown, expired or already used
+    public String redeem(String ticket) {
+        if (ticket == null) {
+            return null;
+        }
+        return userIdsByTicket.asMap().remove(ticket);
+    }
+}
@@ -0,0 +1,52 @@
+package com.foodlearning.service;
+
+import com.foodlearning.dto.UserSummaryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Copies author name and photo onto posts and comments written before they were stored there.
+// Idempotent: only authors that still have rows without authorName are processed.
+@Component
+@ConditionalOnProperty(name = "migrations.author-fields.enabled", havingValue = "true")
+public class AuthorFieldsMigrationRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthorFieldsMigrationRunner.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserSummaryService userSummaryService;
+
+    @Autowired
+    private AuthorProfilePropagator authorProfilePropagator;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query missing = new Query(Criteria.where("authorName").exists(false));
+        Set<String> userIds = new LinkedHashSet<>();
+        userIds.addAll(mongoTemplate.findDistinct(missing, "userId", "posts", String.class));
+        userIds.addAll(mongoTemplate.findDistinct(missing, "userId", "comments", String.class));
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        // Rows of deleted users keep falling back to the (empty) summary lookup
+        Map<String, UserSummaryDTO> authors = userSummaryService.getSummaries(userIds);
+        authors.values().forEach(author ->
+                authorProfilePropagator.propagate(author.getId(), author.getName(), author.getPhoto()));
+        logger.info("Backfilled author fields for {} users", authors.size());
+    }
+}
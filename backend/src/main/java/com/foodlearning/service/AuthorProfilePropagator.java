@@ -0,0 +1,102 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.Comment;
+import com.foodlearning.entity.Post;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Posts and comments carry a copy of their author's name and photo. After a profile change this
+// rewrites the copies in the background, a batch of rows per update, so reads never join users.
+@Service
+public class AuthorProfilePropagator {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthorProfilePropagator.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final ThreadPoolExecutor propagationExecutor;
+
+    @Autowired
+    public AuthorProfilePropagator(MongoTemplate mongoTemplate,
+                                   @Value("${denormalization.author.batch-size:500}") int batchSize,
+                                   @Value("${denormalization.author.queue-capacity:1000}") int queueCapacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        // One thread, so successive changes of the same profile are applied in order
+        this.propagationExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> new Thread(task, "author-propagation"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public void propagateAsync(String userId, String name, String photo) {
+        propagationExecutor.execute(() -> {
+            try {
+                propagate(userId, name, photo);
+            } catch (RuntimeException e) {
+                logger.error("Author profile propagation failed for user {}", userId, e);
+            }
+        });
+    }
+
+    // Rows that already hold these values are skipped, so re-running is cheap
+    public void propagate(String userId, String name, String photo) {
+        long posts = propagate(Post.class, userId, name, photo);
+        long comments = propagate(Comment.class, userId, name, photo);
+        if (posts + comments > 0) {
+            logger.info("Updated author of {} posts and {} comments for user {}", posts, comments, userId);
+        }
+    }
+
+    private long propagate(Class<?> type, String userId, String name, String photo) {
+        Query stale = new Query(Criteria.where("userId").is(userId).orOperator(
+                Criteria.where("authorName").ne(name),
+                Criteria.where("authorPhoto").ne(photo)));
+        stale.fields().include("_id");
+        Update update = new Update().set("authorName", name).set("authorPhoto", photo);
+
+        long updated = 0;
+        List<Object> batch = new ArrayList<>(batchSize);
+        String collection = mongoTemplate.getCollectionName(type);
+        try (Stream<Document> rows = mongoTemplate.stream(stale, Document.class, collection)) {
+            for (Document row : (Iterable<Document>) rows::iterator) {
+                batch.add(row.get("_id"));
+                if (batch.size() >= batchSize) {
+                    updated += writeBatch(collection, batch, update);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            updated += writeBatch(collection, batch, update);
+        }
+        return updated;
+    }
+
+    private long writeBatch(String collection, List<Object> ids, Update update) {
+        return mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids)), update, collection)
+                .getModifiedCount();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        propagationExecutor.shutdown();
+        propagationExecutor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,56 @@
+package com.foodlearning.service;
+
+import com.foodlearning.repo.CommentRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+// Seeds Post.commentCount from the comments collection and drops the stale embedded
+// Post.comments list. Idempotent: only posts without a counter or with the old list are touched.
+// Runs before the web server accepts requests, so no live comment $inc can land between a
+// post's count and its $set.
+@Component
+@ConditionalOnProperty(name = "migrations.comment-counts.enabled", havingValue = "true")
+public class CommentCountMigrationRunner implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentCountMigrationRunner.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Query legacy = new Query(new Criteria().orOperator(
+                Criteria.where("commentCount").exists(false),
+                Criteria.where("comments").exists(true)));
+        legacy.fields().include("_id");
+
+        int migrated = 0;
+        try (Stream<Document> posts = mongoTemplate.stream(legacy, Document.class, "posts")) {
+            for (Document post : (Iterable<Document>) posts::iterator) {
+                String postId = post.getObjectId("_id").toHexString();
+                // Counted per post through post_comments_idx
+                long count = commentRepository.countByPostId(postId);
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(post.getObjectId("_id"))),
+                        new Update().unset("comments").set("commentCount", count), "posts");
+                migrated++;
+            }
+        }
+        if (migrated > 0) {
+            logger.info("Seeded comment counts of {} posts", migrated);
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package com.foodlearning.service;  //Standard package for service classes
 
 import com.foodlearning.dto.CommentDTO;
+import com.foodlearning.dto.PageDTO;
+import com.foodlearning.dto.UserSummaryDTO;
 import com.foodlearning.entity.Comment;
 import com.foodlearning.entity.Post;
 import com.foodlearning.exception.CommentNotFoundException;
 import com.foodlearning.exception.PostNotFoundException;
 import com.foodlearning.repo.CommentRepository;
-import com.foodlearning.repo.PostRepository;
-import com.foodlearning.repo.UserRepository;
+import com.foodlearning.util.CursorCodec;
+import lombok.Data;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service  //Marks this as a Spring service component
 public class CommentService {
@@ -21,27 +37,42 @@ public class CommentService {
     private CommentRepository commentRepository; // For database operations on comments
 
     @Autowired
-    private UserRepository userRepository;  //To fetch user details when converting to DTOs
+    private UserSummaryService userSummaryService;  //To attach author details when converting to DTOs
 
     @Autowired
-    private PostRepository postRepository;
+    private MongoTemplate mongoTemplate;  //Atomic updates of the post's comment counter
+
+    @Autowired
+    private PostCache postCache;  //Cached posts carry commentCount, so they are dropped when it changes
 
     @Autowired
     private NotificationService notificationService;    
 
     public Comment createComment(String postId, String userId, String content) {
+        // Bumping the counter first also tells us the post exists and who owns it
+        Post post = incrementCommentCount(postId, 1);
+        if (post == null) {
+            throw new PostNotFoundException("Post not found");
+        }
+
         Comment comment = new Comment();
         comment.setPostId(postId);
         comment.setUserId(userId);
+        userSummaryService.getSummary(userId).ifPresent(author -> {  //Stored with the comment so reads need no user lookup
+            comment.setAuthorName(author.getName());
+            comment.setAuthorPhoto(author.getPhoto());
+        });
         comment.setContent(content);
         comment.setCreatedAt(LocalDateTime.now());
-        
-        Comment savedComment = commentRepository.save(comment);
-        
-        // Get post to notify owner
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new PostNotFoundException("Post not found"));
-        
+
+        Comment savedComment;
+        try {
+            savedComment = commentRepository.save(comment);
+        } catch (RuntimeException e) {
+            incrementCommentCount(postId, -1);  //Keep the counter in step when the insert fails
+            throw e;
+        }
+
         // Notify post owner (unless they're commenting on their own post)
         if (!post.getUserId().equals(userId)) {
             notificationService.createNotification(
@@ -61,8 +92,42 @@ public class CommentService {
                 .orElseThrow(() -> new CommentNotFoundException("Comment not found with id: " + id));
     }
 
-    public List<Comment> getCommentsByPostId(String postId) {  //Gets all comments for a post
-        return commentRepository.findByPostIdOrderByCreatedAtDesc(postId);
+    public PageDTO<CommentDTO> getCommentsPage(String postId, String cursor, int limit) {  //Newest-first page of a post's comments
+        int pageSize = CursorCodec.clampPageSize(limit);
+        Pageable fetch = PageRequest.of(0, pageSize + 1);
+
+        List<Comment> rows;
+        if (CursorCodec.isPresent(cursor)) {
+            CursorCodec.Cursor position = CursorCodec.decode(cursor);
+            try (Stream<Comment> stream = commentRepository.streamByPostAfter(
+                    postId, position.createdAt(), position.id(), fetch)) {
+                rows = stream.toList();
+            }
+        } else {
+            try (Stream<Comment> stream = commentRepository.streamByPost(postId, fetch)) {
+                rows = stream.toList();
+            }
+        }
+
+        return PageDTO.of(rows, pageSize,
+                comment -> CursorCodec.encode(comment.getCreatedAt(), comment.getId()),
+                this::convertToDTOs);
+    }
+
+    public Map<String, List<Comment>> getPreviewComments(Collection<String> postIds, int perPost) {  //Newest comments of several posts in one aggregation
+        if (postIds.isEmpty() || perPost <= 0) {
+            return Map.of();
+        }
+        // $topN keeps only perPost comments per group instead of pushing every comment of a busy post
+        AggregationOperation newestPerPost = context -> new Document("$group", new Document("_id", "$postId")
+                .append("comments", new Document("$topN", new Document("n", perPost)
+                        .append("sortBy", new Document("createdAt", -1).append("_id", -1))
+                        .append("output", "$$ROOT"))));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("postId").in(postIds)),
+                newestPerPost);
+        return mongoTemplate.aggregate(aggregation, Comment.class, PreviewGroup.class).getMappedResults().stream()
+                .collect(Collectors.toMap(PreviewGroup::getId, PreviewGroup::getComments));
     }
 
     public Comment updateComment(String id, String userId, String content) {  //Updates comment content
@@ -74,36 +139,76 @@ public class CommentService {
         return commentRepository.save(comment);
     }
 
-    // In CommentService.java
-    public void deleteComment(String id, String userId) {
-    Comment comment = getCommentById(id);
-    
-    // Get the post to check ownership
-    Post post = postRepository.findById(comment.getPostId())
-            .orElseThrow(() -> new PostNotFoundException("Post not found"));
-    
-    // Allow deletion if user is comment owner OR post owner
-    if (!comment.getUserId().equals(userId) && !post.getUserId().equals(userId)) {
-        throw new RuntimeException("Not authorized to delete this comment");
+    public void deleteComment(String id, String userId) {  //Comment owner or post owner may delete
+        Comment comment = getCommentById(id);
+
+        // Get the post owner to check ownership
+        Query postQuery = new Query(Criteria.where("_id").is(comment.getPostId()));
+        postQuery.fields().include("userId");
+        Post post = mongoTemplate.findOne(postQuery, Post.class);
+        if (post == null) {
+            throw new PostNotFoundException("Post not found");
+        }
+
+        // Allow deletion if user is comment owner OR post owner
+        if (!comment.getUserId().equals(userId) && !post.getUserId().equals(userId)) {
+            throw new RuntimeException("Not authorized to delete this comment");
+        }
+
+        // Only the request that actually removed the row decrements, so concurrent deletes count once
+        long deleted = mongoTemplate.remove(new Query(Criteria.where("_id").is(id)), Comment.class)
+                .getDeletedCount();
+        if (deleted > 0) {
+            incrementCommentCount(comment.getPostId(), -1);
+        }
+    }
+
+    // Returns the post (userId and commentCount only) after the update, or null if it doesn't exist
+    private Post incrementCommentCount(String postId, int delta) {
+        Query query = new Query(Criteria.where("_id").is(postId));
+        query.fields().include("userId", "commentCount");
+        Post updated = mongoTemplate.findAndModify(query, new Update().inc("commentCount", delta),
+                FindAndModifyOptions.options().returnNew(true), Post.class);
+        postCache.invalidate(postId);
+        return updated;
     }
-    
-    commentRepository.deleteById(id);
-}
 
     public CommentDTO convertToDTO(Comment comment) {  //Converts Comment entity to CommentDTO
+        return convertToDTOs(List.of(comment)).get(0);
+    }
+
+    public List<CommentDTO> convertToDTOs(List<Comment> comments) {  //Converts a batch; only comments without stored author fields need a lookup
+        Map<String, UserSummaryDTO> authors = userSummaryService.getSummaries(comments.stream()
+                .filter(comment -> comment.getAuthorName() == null)
+                .map(Comment::getUserId)
+                .toList());
+        return comments.stream()
+                .map(comment -> toDTO(comment, authors.get(comment.getUserId())))
+                .toList();
+    }
+
+    @Data
+    public static class PreviewGroup {  //One $group row of getPreviewComments, keyed by postId
+        private String id;
+        private List<Comment> comments;
+    }
+
+    private CommentDTO toDTO(Comment comment, UserSummaryDTO author) {
         CommentDTO dto = new CommentDTO();
         dto.setId(comment.getId());
         dto.setPostId(comment.getPostId());
         dto.setUserId(comment.getUserId());
         dto.setContent(comment.getContent());
         dto.setCreatedAt(comment.getCreatedAt());
-        
-        // Fetch user details
-        userRepository.findById(comment.getUserId()).ifPresent(user -> {
-            dto.setUsername(user.getName());
-            dto.setUserPhoto(user.getPhoto());
-        });
-        
+
+        if (comment.getAuthorName() != null) {
+            dto.setUsername(comment.getAuthorName());
+            dto.setUserPhoto(comment.getAuthorPhoto());
+        } else if (author != null) {
+            dto.setUsername(author.getName());
+            dto.setUserPhoto(author.getPhoto());
+        }
+
         return dto;
     }
 }
\ No newline at end of file
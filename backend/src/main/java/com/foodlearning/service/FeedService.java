@@ -0,0 +1,103 @@
+package com.foodlearning.service;
+
+import com.foodlearning.dto.CommentDTO;
+import com.foodlearning.dto.PageDTO;
+import com.foodlearning.dto.PostDTO;
+import com.foodlearning.entity.Comment;
+import com.foodlearning.entity.Post;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Feed pages with everything a card renders: author, like state, comment count and the newest
+// comments. Each page costs a fixed number of batched queries, run concurrently.
+@Service
+public class FeedService {
+
+    public static final int MAX_PREVIEW_COMMENTS = 10;
+
+    private final PostService postService;
+    private final CommentService commentService;
+    private final ThreadPoolExecutor enrichExecutor;
+
+    @Autowired
+    public FeedService(PostService postService, CommentService commentService,
+                       @Value("${feed.enrich.threads:8}") int enrichThreads,
+                       @Value("${feed.enrich.queue-capacity:200}") int enrichQueueCapacity) {
+        this.postService = postService;
+        this.commentService = commentService;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        // When the queue is full the request thread runs the lookup itself
+        this.enrichExecutor = new ThreadPoolExecutor(enrichThreads, enrichThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(enrichQueueCapacity),
+                task -> new Thread(task, "feed-enrich-" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public PageDTO<PostDTO> getFeedPage(String cursor, int limit, String viewerId, int previewComments) {
+        return postService.getFeedPage(cursor, limit, page -> enrich(page, viewerId, previewComments));
+    }
+
+    public PageDTO<PostDTO> getTimelinePage(String userId, String cursor, int limit, int previewComments) {
+        return postService.getTimelinePage(userId, cursor, limit, page -> enrich(page, userId, previewComments));
+    }
+
+    // Two independent lookups: like state (one post_likes query) and preview comments (one
+    // aggregation). Authors and comment counts are stored on the rows and need no query.
+    private List<PostDTO> enrich(List<Post> posts, String viewerId, int previewComments) {
+        if (posts.isEmpty()) {
+            return List.of();
+        }
+        int perPost = Math.max(0, Math.min(previewComments, MAX_PREVIEW_COMMENTS));
+        List<String> postIds = posts.stream().map(Post::getId).toList();
+
+        CompletableFuture<List<PostDTO>> cards = CompletableFuture.supplyAsync(
+                () -> postService.convertToDTOs(posts, viewerId), enrichExecutor);
+        CompletableFuture<Map<String, List<CommentDTO>>> comments = CompletableFuture.supplyAsync(
+                () -> previewComments(postIds, perPost), enrichExecutor);
+
+        try {
+            CompletableFuture.allOf(cards, comments).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        List<PostDTO> result = cards.join();
+        Map<String, List<CommentDTO>> commentsByPost = comments.join();
+        for (PostDTO dto : result) {
+            dto.setPreviewComments(commentsByPost.getOrDefault(dto.getId(), List.of()));
+        }
+        return result;
+    }
+
+    private Map<String, List<CommentDTO>> previewComments(List<String> postIds, int perPost) {
+        Map<String, List<Comment>> byPost = commentService.getPreviewComments(postIds, perPost);
+        List<Comment> all = new ArrayList<>();
+        byPost.values().forEach(all::addAll);
+        // Converted as one batch so commenters of legacy rows come from a single summary lookup
+        return commentService.convertToDTOs(all).stream()
+                .collect(Collectors.groupingBy(CommentDTO::getPostId));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        enrichExecutor.shutdown();
+        enrichExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -1,65 +1,284 @@
 package com.foodlearning.service;
 
-import com.mongodb.BasicDBObject;
-import com.mongodb.DBObject;
-import com.mongodb.client.gridfs.model.GridFSFile;
+import com.foodlearning.entity.MediaFile;
+import com.foodlearning.storage.GridFsMediaStorage;
+import com.foodlearning.storage.MediaStorage;
+import com.foodlearning.storage.MediaStorageRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.io.IOUtils;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.gridfs.GridFsOperations;
-import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.data.mongodb.gridfs.GridFsResource; 
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// Media is content-addressed: files are keyed by the SHA-256 of their bytes and shared between
+// posts, with MediaFile.refCount tracking how many references exist. The bytes themselves go
+// to the MediaStorage backend selected by media.storage.backend.
 @Service
 public class FileStorageService {
 
     @Autowired
-    private GridFsTemplate gridFsTemplate;
+    private MediaStorageRegistry storageRegistry;
 
     @Autowired
-    private GridFsOperations operations;
+    private ImageVariantService imageVariantService;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${media.upload.threads:4}")
+    private int uploadThreads;
+
+    @Value("${media.upload.queue-capacity:64}")
+    private int uploadQueueCapacity;
+
+    private ThreadPoolExecutor uploadExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // When the queue is full the request thread stores the file itself
+        uploadExecutor = new ThreadPoolExecutor(uploadThreads, uploadThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(uploadQueueCapacity),
+                task -> new Thread(task, "media-upload-" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Hashes the multipart temp file first; if identical bytes are already stored, that file gets
+    // another reference and nothing is written. Otherwise the temp file is streamed to storage.
+    // Two concurrent first uploads of the same bytes can still produce two copies; each is
+    // reference-counted on its own, so that only costs space.
     public String storeFile(MultipartFile file, String userId) throws IOException {
-        DBObject metadata = new BasicDBObject();
-        metadata.put("userId", userId);
-        metadata.put("type", file.getContentType());
-        return gridFsTemplate.store(
-                file.getInputStream(),
-                file.getOriginalFilename(),
-                file.getContentType(),
-                metadata
-        ).toString();
+        String sha256 = hash(file);
+        String existingId = acquireExisting(sha256);
+        if (existingId != null) {
+            return existingId;
+        }
+
+        MediaFile media = new MediaFile();
+        media.setId(new ObjectId().toHexString());
+        media.setFilename(file.getOriginalFilename());
+        media.setContentType(file.getContentType());
+        media.setLength(file.getSize());
+        media.setUserId(userId);
+        media.setSha256(sha256);
+        media.setRefCount(1);
+
+        try (InputStream in = file.getInputStream()) {
+            write(media, in);
+        }
+        imageVariantService.generateAsync(media.getId(), file.getContentType(), userId);
+        return media.getId();
+    }
+
+    // Writes the bytes to the primary backend, then the catalog entry, so an entry never points
+    // at a blob that isn't there
+    private void write(MediaFile media, InputStream content) throws IOException {
+        MediaStorage storage = storageRegistry.primary();
+        storage.put(media.getId(), content, media.getLength(), media.getContentType());
+        media.setBackend(storage.name());
+        media.setUploadedAt(LocalDateTime.now());
+        try {
+            mongoTemplate.insert(media);
+        } catch (RuntimeException e) {
+            storage.delete(media.getId());
+            throw e;
+        }
     }
 
     public byte[] getFile(String id) throws IOException {
-        GridFSFile file = gridFsTemplate.findOne(new Query(Criteria.where("_id").is(id)));
-        return IOUtils.toByteArray(operations.getResource(file).getInputStream());
+        MediaFile file = getMediaFile(id);
+        Resource resource = file != null ? loadResource(file) : null;
+        if (resource == null) {
+            throw new IOException("File not found: " + id);
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return IOUtils.toByteArray(in);
+        }
     }
 
+    // Drops one reference; the file and its variants are deleted with the last one
     public void deleteFile(String id) {
-        gridFsTemplate.delete(new Query(Criteria.where("_id").is(id)));
+        Query query = new Query(Criteria.where("_id").is(id));
+        MediaFile file = mongoTemplate.findAndModify(query, new Update().inc("refCount", -1),
+                FindAndModifyOptions.options().returnNew(true), MediaFile.class);
+        if (file == null && getMediaFile(id) != null) {
+            // legacy GridFS file, catalogued just now
+            file = mongoTemplate.findAndModify(query, new Update().inc("refCount", -1),
+                    FindAndModifyOptions.options().returnNew(true), MediaFile.class);
+        }
+        if (file == null || file.getRefCount() > 0) {
+            return;
+        }
+        // Guarded on refCount so a reference re-acquired in between keeps the file alive
+        MediaFile removed = mongoTemplate.findAndRemove(
+                new Query(Criteria.where("_id").is(id).and("refCount").lte(0)), MediaFile.class);
+        if (removed != null) {
+            storageRegistry.of(removed).delete(removed.getId());
+            imageVariantService.deleteVariants(id);
+        }
+    }
+
+    // Adds a reference to a live stored file with this hash and returns its id, or null if none.
+    // Files whose count already hit zero are about to be deleted and are not revived.
+    private String acquireExisting(String sha256) {
+        Query query = new Query(Criteria.where("sha256").is(sha256).and("refCount").gte(1));
+        query.fields().include("_id");
+        MediaFile file = mongoTemplate.findAndModify(query, new Update().inc("refCount", 1), MediaFile.class);
+        return file != null ? file.getId() : null;
     }
 
+    private String hash(MultipartFile file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Stores the files concurrently, so the call takes about as long as the largest file.
+    // All-or-nothing: if any file fails, the ones already stored are deleted again.
     public List<String> storeMultipleFiles(List<MultipartFile> files, String userId) throws IOException {
-        List<String> fileIds = new ArrayList<>();
+        List<Future<String>> uploads = new ArrayList<>();
         for (MultipartFile file : files) {
-            fileIds.add(storeFile(file, userId));
+            uploads.add(uploadExecutor.submit(() -> storeFile(file, userId)));
         }
-        return fileIds;
+
+        List<String> fileIds = new ArrayList<>();
+        Throwable failure = null;
+        for (Future<String> upload : uploads) {
+            try {
+                fileIds.add(upload.get());
+            } catch (ExecutionException e) {
+                failure = failure != null ? failure : e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = failure != null ? failure : e;
+            }
+        }
+        if (failure == null) {
+            return fileIds;
+        }
+
+        fileIds.forEach(this::deleteFile);
+        if (failure instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        throw new IOException("File upload failed", failure);
+    }
+
+    // Files uploaded before media_files existed are catalogued on first read, so they stay
+    // servable whether or not the media-storage migration has run
+    public MediaFile getMediaFile(String id) {
+        MediaFile file = mongoTemplate.findById(id, MediaFile.class);
+        if (file != null || !ObjectId.isValid(id)) {
+            return file;
+        }
+        Document legacy = mongoTemplate.findById(new ObjectId(id), Document.class, "fs.files");
+        if (legacy == null) {
+            return null;
+        }
+        catalogGridFsFile(legacy);
+        return mongoTemplate.findById(id, MediaFile.class);
+    }
+
+    // Creates the media_files entry for a GridFS blob under its existing id. Upserts with
+    // $setOnInsert only, so concurrent readers and the migration can race on the same file.
+    public void catalogGridFsFile(Document file) {
+        Document metadata = file.get("metadata", Document.class);
+        if (metadata == null) {
+            metadata = new Document();
+        }
+        String contentType = metadata.getString("_contentType");
+        Number refCount = metadata.get("refCount", Number.class);
+
+        Update update = new Update()
+                .setOnInsert("filename", file.getString("filename"))
+                .setOnInsert("contentType", contentType != null ? contentType : metadata.getString("type"))
+                .setOnInsert("length", file.get("length", Number.class).longValue())
+                .setOnInsert("userId", metadata.getString("userId"))
+                .setOnInsert("sha256", metadata.getString("sha256"))
+                .setOnInsert("refCount", refCount != null ? refCount.intValue() : 1)
+                .setOnInsert("backend", GridFsMediaStorage.NAME)
+                .setOnInsert("originalId", metadata.getString("originalId"))
+                .setOnInsert("variant", metadata.getString("variant"))
+                .setOnInsert("width", metadata.get("width"))
+                .setOnInsert("height", metadata.get("height"))
+                .setOnInsert("uploadedAt", file.getDate("uploadDate"));
+        try {
+            mongoTemplate.upsert(new Query(Criteria.where("_id").is(file.get("_id"))), update, "media_files");
+        } catch (DuplicateKeyException e) {
+            // another reader catalogued it first
+        }
+
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(file.get("_id"))),
+                new Update().set("metadata.catalogued", true), "fs.files");
+    }
+
+    // Null when the original is not an image or the variant hasn't been generated yet
+    public MediaFile getVariantFile(String originalId, String variant) {
+        return imageVariantService.findVariant(originalId, variant);
+    }
+
+    public Resource loadResource(MediaFile file) throws IOException {
+        return storageRegistry.of(file).load(file.getId(), file.getLength());
     }
 
-    public GridFSFile getGridFsFile(String id) {
-        return gridFsTemplate.findOne(new Query(Criteria.where("_id").is(id)));
+    // Bytes start..end (inclusive), read from the backend without fetching what precedes them
+    public Resource loadRange(MediaFile file, long start, long end) throws IOException {
+        return storageRegistry.of(file).loadRange(file.getId(), file.getLength(), start, end);
     }
-    
-    public GridFsResource getGridFsResource(GridFSFile file) {
-        return operations.getResource(file);
+
+    // Set when the backend keeps the bytes in a local file that can be sent with sendfile
+    public Path localPath(MediaFile file) {
+        return storageRegistry.of(file).localPath(file.getId());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdownUploadExecutor() throws InterruptedException {
+        uploadExecutor.shutdown();
+        uploadExecutor.awaitTermination(30, TimeUnit.SECONDS);
     }
-}
\ No newline at end of file
+}
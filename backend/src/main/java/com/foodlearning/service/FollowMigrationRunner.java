@@ -0,0 +1,125 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.Follow;
+import com.foodlearning.entity.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Moves legacy embedded User.followers/following arrays into the follows collection and
+// recomputes the counters from the edges. Idempotent: edges are upserted on
+// (followerId, followeeId) and the arrays are removed once copied. Runs before the web server
+// accepts requests, so no live follow or unfollow can land between a count and its $set.
+@Component
+@ConditionalOnProperty(name = "migrations.follows.enabled", havingValue = "true")
+public class FollowMigrationRunner implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowMigrationRunner.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Query legacy = new Query(new Criteria().orOperator(
+                Criteria.where("followers").exists(true),
+                Criteria.where("following").exists(true)));
+        legacy.fields().include("followers", "following");
+
+        int migrated = 0;
+        try (Stream<Document> users = mongoTemplate.stream(legacy, Document.class, "user")) {
+            for (Document user : (Iterable<Document>) users::iterator) {
+                migrateUser(user);
+                migrated++;
+            }
+        }
+        if (migrated > 0) {
+            recomputeCounters();
+            logger.info("Migrated embedded follow lists of {} users into follows", migrated);
+        }
+    }
+
+    private void migrateUser(Document user) {
+        String userId = user.getObjectId("_id").toHexString();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Follow.class);
+        int edges = 0;
+        for (Document follower : user.getList("followers", Document.class, List.of())) {
+            edges += upsertEdge(bulk, follower.getString("id"), userId);
+        }
+        for (Document followee : user.getList("following", Document.class, List.of())) {
+            edges += upsertEdge(bulk, userId, followee.getString("id"));
+        }
+        if (edges > 0) {
+            bulk.execute();
+        }
+
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(user.getObjectId("_id"))),
+                new Update().unset("followers").unset("following"), "user");
+    }
+
+    private int upsertEdge(BulkOperations bulk, String followerId, String followeeId) {
+        if (followerId == null || followeeId == null || followerId.equals(followeeId)) {
+            return 0;
+        }
+        bulk.upsert(new Query(Criteria.where("followerId").is(followerId).and("followeeId").is(followeeId)),
+                new Update().setOnInsert("createdAt", new Date()));
+        return 1;
+    }
+
+    // Counts are computed first and then written as final values, so a user's counter never passes
+    // through zero; nothing else writes the counters yet.
+    private void recomputeCounters() {
+        applyCounts("followeeId", "followerCount");
+        applyCounts("followerId", "followingCount");
+    }
+
+    private void applyCounts(String groupField, String counterField) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group(groupField).count().as("count"));
+        Map<String, Long> counts = new HashMap<>();
+        for (Document count : mongoTemplate.aggregate(aggregation, Follow.class, Document.class)
+                .getMappedResults()) {
+            counts.put(count.getString("_id"), count.get("count", Number.class).longValue());
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        int updates = 0;
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            bulk.updateOne(new Query(Criteria.where("_id").is(count.getKey())),
+                    new Update().set(counterField, count.getValue()));
+            updates++;
+        }
+
+        // Users without any edge only need touching if they still carry a stale non-zero counter
+        Query stale = new Query(Criteria.where(counterField).ne(0L));
+        stale.fields().include("_id");
+        try (Stream<Document> users = mongoTemplate.stream(stale, Document.class, "user")) {
+            for (Document user : (Iterable<Document>) users::iterator) {
+                String userId = user.getObjectId("_id").toHexString();
+                if (!counts.containsKey(userId)) {
+                    bulk.updateOne(new Query(Criteria.where("_id").is(userId)), new Update().set(counterField, 0L));
+                    updates++;
+                }
+            }
+        }
+        if (updates > 0) {
+            bulk.execute();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.foodlearning.service;
+
+import com.foodlearning.dto.FollowResultDTO;
+import com.foodlearning.dto.PageDTO;
+import com.foodlearning.dto.UserSummaryDTO;
+import com.foodlearning.entity.Follow;
+import com.foodlearning.entity.User;
+import com.foodlearning.exception.InvalidUserDataException;
+import com.foodlearning.repo.FollowRepository;
+import com.foodlearning.util.CursorCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Follow graph stored as one document per edge in `follows`. The unique (followerId, followeeId)
+// index decides whether a follow/unfollow changed anything; only then are the counters on both
+// users adjusted, so retries and double clicks can't skew them.
+@Service
+public class FollowService {
+
+    private final FollowRepository followRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TimelineService timelineService;
+    private final UserSummaryService userSummaryService;
+
+    @Autowired
+    public FollowService(FollowRepository followRepository, MongoTemplate mongoTemplate,
+                         TimelineService timelineService, UserSummaryService userSummaryService) {
+        this.followRepository = followRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.timelineService = timelineService;
+        this.userSummaryService = userSummaryService;
+    }
+
+    public FollowResultDTO follow(String followerId, String followeeId) {
+        if (followerId.equals(followeeId)) {
+            throw new InvalidUserDataException("Users cannot follow themselves");
+        }
+        if (!mongoTemplate.exists(new Query(Criteria.where("_id").is(followeeId)), User.class)) {
+            throw new RuntimeException("User not found");
+        }
+
+        Follow follow = new Follow();
+        follow.setFollowerId(followerId);
+        follow.setFolloweeId(followeeId);
+        follow.setCreatedAt(LocalDateTime.now());
+        try {
+            followRepository.insert(follow);
+        } catch (DuplicateKeyException e) {
+            return followResult(followeeId, currentFollowerCount(followeeId), true);
+        }
+
+        incrementFollowingCount(followerId, 1);
+        User followee = incrementFollowerCount(followeeId, 1);
+        if (followee == null) {
+            // Followee was deleted in between; undo so no dangling edge is left behind
+            followRepository.deleteByFollowerIdAndFolloweeId(followerId, followeeId);
+            incrementFollowingCount(followerId, -1);
+            throw new RuntimeException("User not found");
+        }
+
+        evictSummaries(followerId, followeeId);
+        timelineService.backfill(followerId, followeeId, followee.getFollowerCount());
+        return followResult(followeeId, followee.getFollowerCount(), true);
+    }
+
+    public FollowResultDTO unfollow(String followerId, String followeeId) {
+        if (followRepository.deleteByFollowerIdAndFolloweeId(followerId, followeeId) == 0) {
+            return followResult(followeeId, currentFollowerCount(followeeId), false);
+        }
+
+        incrementFollowingCount(followerId, -1);
+        User followee = incrementFollowerCount(followeeId, -1);
+        evictSummaries(followerId, followeeId);
+        timelineService.removeAuthor(followerId, followeeId);
+        return followResult(followeeId, followee != null ? followee.getFollowerCount() : 0, false);
+    }
+
+    public boolean isFollowing(String followerId, String followeeId) {
+        return mongoTemplate.exists(new Query(Criteria.where("followerId").is(followerId)
+                .and("followeeId").is(followeeId)), Follow.class);
+    }
+
+    public PageDTO<UserSummaryDTO> getFollowers(String userId, String cursor, int limit) {
+        return page(cursor, limit, Follow::getFollowerId,
+                fetch -> followRepository.streamFollowers(userId, fetch),
+                (position, fetch) -> followRepository.streamFollowersAfter(
+                        userId, position.createdAt(), position.id(), fetch));
+    }
+
+    public PageDTO<UserSummaryDTO> getFollowing(String userId, String cursor, int limit) {
+        return page(cursor, limit, Follow::getFolloweeId,
+                fetch -> followRepository.streamFollowing(userId, fetch),
+                (position, fetch) -> followRepository.streamFollowingAfter(
+                        userId, position.createdAt(), position.id(), fetch));
+    }
+
+    // Removes every edge touching the user and fixes the counters of the other side
+    public void removeUser(String userId) {
+        try (Stream<Follow> followers = followRepository.streamFollowerIds(userId)) {
+            followers.forEach(edge -> incrementFollowingCount(edge.getFollowerId(), -1));
+        }
+        followRepository.findFolloweeIds(userId)
+                .forEach(edge -> incrementFollowerCount(edge.getFolloweeId(), -1));
+        followRepository.deleteByFollowerIdOrFolloweeId(userId, userId);
+    }
+
+    private PageDTO<UserSummaryDTO> page(String cursor, int limit, Function<Follow, String> otherSide,
+                                         Function<Pageable, Stream<Follow>> first,
+                                         BiFunction<CursorCodec.Cursor, Pageable, Stream<Follow>> after) {
+        int pageSize = CursorCodec.clampPageSize(limit);
+        Pageable fetch = PageRequest.of(0, pageSize + 1);
+
+        List<Follow> rows;
+        try (Stream<Follow> stream = CursorCodec.isPresent(cursor)
+                ? after.apply(CursorCodec.decode(cursor), fetch)
+                : first.apply(fetch)) {
+            rows = stream.toList();
+        }
+
+        return PageDTO.of(rows, pageSize,
+                follow -> CursorCodec.encode(follow.getCreatedAt(), follow.getId()),
+                page -> {
+                    Map<String, UserSummaryDTO> users = userSummaryService.getSummaries(
+                            page.stream().map(otherSide).toList());
+                    return page.stream()
+                            .map(follow -> users.get(otherSide.apply(follow)))
+                            .filter(Objects::nonNull)
+                            .toList();
+                });
+    }
+
+    // Returns the user (followerCount only) after the update, or null if it doesn't exist
+    private User incrementFollowerCount(String userId, int delta) {
+        Query query = new Query(Criteria.where("_id").is(userId));
+        query.fields().include("followerCount");
+        return mongoTemplate.findAndModify(query, new Update().inc("followerCount", delta),
+                FindAndModifyOptions.options().returnNew(true), User.class);
+    }
+
+    private void incrementFollowingCount(String userId, int delta) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId)),
+                new Update().inc("followingCount", delta), User.class);
+    }
+
+    // Summaries carry the counters, so both sides need a fresh copy
+    private void evictSummaries(String followerId, String followeeId) {
+        userSummaryService.evict(followerId);
+        userSummaryService.evict(followeeId);
+    }
+
+    private long currentFollowerCount(String userId) {
+        Query query = new Query(Criteria.where("_id").is(userId));
+        query.fields().include("followerCount");
+        User user = mongoTemplate.findOne(query, User.class);
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
+        return user.getFollowerCount();
+    }
+
+    private FollowResultDTO followResult(String userId, long followerCount, boolean following) {
+        FollowResultDTO result = new FollowResultDTO();
+        result.setUserId(userId);
+        result.setFollowerCount(followerCount);
+        result.setFollowing(following);
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.MediaFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Generates thumb/feed/full variants for images uploaded before variants existed. Idempotent:
+// originals that already have every variant are skipped, and a partial set left by an
+// interrupted run is dropped and regenerated. Work goes through the variant executor, whose
+// caller-runs policy throttles this scan to the pool's pace.
+@Component
+@ConditionalOnProperty(name = "migrations.image-variants.enabled", havingValue = "true")
+public class ImageVariantBackfillRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantBackfillRunner.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query originals = new Query(Criteria.where("originalId").exists(false)
+                .and("contentType").regex("^image/", "i"));
+        originals.fields().include("contentType", "userId");
+
+        int queued = 0;
+        try (Stream<MediaFile> files = mongoTemplate.stream(originals, MediaFile.class)) {
+            for (MediaFile file : (Iterable<MediaFile>) files::iterator) {
+                if (backfill(file)) {
+                    queued++;
+                }
+            }
+        }
+        if (queued > 0) {
+            logger.info("Queued image variant generation for {} existing images", queued);
+        }
+    }
+
+    private boolean backfill(MediaFile file) {
+        if (!imageVariantService.isSupported(file.getContentType())) {
+            return false;
+        }
+        Map<String, Set<String>> available = imageVariantService.availableVariants(List.of(file.getId()));
+        Set<String> existing = available.getOrDefault(file.getId(), Set.of());
+        if (existing.containsAll(ImageVariantService.VARIANTS.keySet())) {
+            return false;
+        }
+        if (!existing.isEmpty()) {
+            imageVariantService.deleteVariants(file.getId());
+        }
+        imageVariantService.generateAsync(file.getId(), file.getContentType(), file.getUserId());
+        return true;
+    }
+}
@@ -0,0 +1,357 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.MediaFile;
+import com.foodlearning.storage.MediaStorage;
+import com.foodlearning.storage.MediaStorageRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Resized, recompressed copies of uploaded images. Variants are separate media files linked to
+// the original through MediaFile.originalId/variant and are generated off the request thread;
+// until they exist the media endpoint falls back to the original.
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    // Longest edge in pixels, largest first so each variant can be scaled from the previous one
+    public static final Map<String, Integer> VARIANTS = variants();
+
+    private static final Set<String> SUPPORTED_TYPES = Set.of("image/jpeg", "image/png", "image/bmp");
+
+    private final MediaStorageRegistry storageRegistry;
+    private final MongoTemplate mongoTemplate;
+    private final float jpegQuality;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public ImageVariantService(MediaStorageRegistry storageRegistry, MongoTemplate mongoTemplate,
+                               @Value("${media.variants.jpeg-quality:0.82}") float jpegQuality,
+                               @Value("${media.variants.threads:2}") int threads,
+                               @Value("${media.variants.queue-capacity:200}") int queueCapacity) {
+        this.storageRegistry = storageRegistry;
+        this.mongoTemplate = mongoTemplate;
+        this.jpegQuality = jpegQuality;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        // Decoding holds a full bitmap in memory, so the pool size bounds heap use; when the
+        // queue is full the uploading thread generates the variants itself
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> new Thread(task, "image-variants-" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static Map<String, Integer> variants() {
+        Map<String, Integer> variants = new LinkedHashMap<>();
+        variants.put("full", 1600);
+        variants.put("feed", 720);
+        variants.put("thumb", 200);
+        return variants;
+    }
+
+    public boolean isSupported(String contentType) {
+        return contentType != null && SUPPORTED_TYPES.contains(contentType.toLowerCase());
+    }
+
+    public void generateAsync(String originalId, String contentType, String userId) {
+        if (!isSupported(contentType)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                generate(originalId, userId);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not create image variants for {}", originalId, e);
+            }
+        });
+    }
+
+    public MediaFile findVariant(String originalId, String variant) {
+        return mongoTemplate.findOne(new Query(Criteria.where("originalId").is(originalId)
+                .and("variant").is(variant)), MediaFile.class);
+    }
+
+    // Variant names already generated for each original, from one query; originals without any are absent
+    public Map<String, Set<String>> availableVariants(Collection<String> originalIds) {
+        Map<String, Set<String>> available = new HashMap<>();
+        if (originalIds.isEmpty()) {
+            return available;
+        }
+        Query query = new Query(Criteria.where("originalId").in(originalIds));
+        query.fields().include("originalId", "variant");
+        for (MediaFile variant : mongoTemplate.find(query, MediaFile.class)) {
+            available.computeIfAbsent(variant.getOriginalId(), id -> new HashSet<>()).add(variant.getVariant());
+        }
+        return available;
+    }
+
+    public void deleteVariants(String originalId) {
+        for (MediaFile variant : mongoTemplate.findAllAndRemove(
+                new Query(Criteria.where("originalId").is(originalId)), MediaFile.class)) {
+            storageRegistry.of(variant).delete(variant.getId());
+        }
+    }
+
+    private void generate(String originalId, String userId) throws IOException {
+        MediaFile original = mongoTemplate.findById(originalId, MediaFile.class);
+        Resource resource = original != null
+                ? storageRegistry.of(original).load(original.getId(), original.getLength())
+                : null;
+        if (resource == null) {
+            return; // deleted before we got to it
+        }
+        BufferedImage source;
+        try (InputStream in = resource.getInputStream()) {
+            source = decode(in, VARIANTS.get("full"));
+        }
+        if (source == null) {
+            return;
+        }
+
+        boolean alpha = source.getColorModel().hasAlpha();
+        BufferedImage previous = source;
+        for (Map.Entry<String, Integer> variant : VARIANTS.entrySet()) {
+            BufferedImage scaled = scale(previous, variant.getValue(), alpha);
+            store(originalId, userId, variant.getKey(), scaled, alpha);
+            previous = scaled;
+        }
+    }
+
+    // Subsamples while decoding so a 12 MP photo is never fully materialised when we only need
+    // ~2x the largest variant. The result is turned upright by the JPEG's EXIF orientation.
+    private BufferedImage decode(InputStream in, int largestEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                int orientation = orientation(input);
+                reader.setInput(input, true, true);
+                int longestEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longestEdge / (largestEdge * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return orient(reader.read(0, param), orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // EXIF Orientation (1-8) from the APP1 segment of a JPEG; 1 (upright) when there is none.
+    // Phone cameras store the sensor's pixels as-is and only record here how to turn them. The
+    // markers are walked by hand because the JDK's JPEG metadata rejects EXIF files that also
+    // carry a JFIF segment after it.
+    private static int orientation(ImageInputStream input) throws IOException {
+        input.mark();
+        try {
+            if (input.readUnsignedShort() != 0xFFD8) {
+                return 1; // not a JPEG
+            }
+            while (true) {
+                int marker = input.readUnsignedShort();
+                // Image data starts at SOS; EXIF is always before it
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1;
+                }
+                int length = input.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return 1;
+                }
+                if (marker == 0xFFE1) {
+                    byte[] app1 = new byte[length];
+                    input.readFully(app1);
+                    int orientation = exifOrientation(app1);
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                } else {
+                    input.skipBytes(length);
+                }
+            }
+        } catch (EOFException e) {
+            return 1;
+        } finally {
+            input.reset();
+        }
+    }
+
+    // Looks the Orientation tag (0x0112) up in IFD0 of an APP1 payload; 0 if it isn't EXIF or has none
+    private static int exifOrientation(byte[] app1) {
+        if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') {
+            return 0;
+        }
+        // "Exif\0\0" is followed by a TIFF header: byte order, 42, offset of IFD0
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd > tiff.limit() - 2) {
+            return 0;
+        }
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry > tiff.limit() - 12) {
+                break;
+            }
+            if ((tiff.getShort(entry) & 0xFFFF) == 0x0112) {
+                // A single SHORT sits in the first two bytes of the value field
+                int orientation = tiff.getShort(entry + 8) & 0xFFFF;
+                return orientation >= 1 && orientation <= 8 ? orientation : 0;
+            }
+        }
+        return 0;
+    }
+
+    // Maps the stored pixels to the upright image; orientations 5-8 swap width and height
+    private static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);  // mirrored
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h); // rotated 180
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);  // flipped
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);   // transposed
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);  // needs 90 clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w); // transversed
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);  // needs 90 counter-clockwise
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+        boolean swap = orientation >= 5;
+        BufferedImage upright = new BufferedImage(swap ? h : w, swap ? w : h,
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = upright.createGraphics();
+        graphics.drawImage(image, transform, null);
+        graphics.dispose();
+        return upright;
+    }
+
+    // Halves repeatedly with bilinear filtering, then does a final step to the exact size;
+    // a single bilinear step from a much larger image aliases badly
+    private BufferedImage scale(BufferedImage image, int longestEdge, boolean alpha) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1.0, (double) longestEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage current = image;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void store(String originalId, String userId, String variant, BufferedImage image, boolean alpha)
+            throws IOException {
+        String contentType = alpha ? "image/png" : "image/jpeg";
+        byte[] bytes = alpha ? encodePng(image) : encodeJpeg(image);
+
+        MediaFile media = new MediaFile();
+        media.setId(new ObjectId().toHexString());
+        media.setFilename(originalId + "-" + variant);
+        media.setContentType(contentType);
+        media.setLength(bytes.length);
+        media.setUserId(userId);
+        media.setRefCount(1);
+        media.setOriginalId(originalId);
+        media.setVariant(variant);
+        media.setWidth(image.getWidth());
+        media.setHeight(image.getHeight());
+
+        MediaStorage storage = storageRegistry.primary();
+        storage.put(media.getId(), new ByteArrayInputStream(bytes), bytes.length, contentType);
+        media.setBackend(storage.name());
+        media.setUploadedAt(LocalDateTime.now());
+        try {
+            mongoTemplate.insert(media);
+        } catch (RuntimeException e) {
+            storage.delete(media.getId());
+            throw e;
+        }
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
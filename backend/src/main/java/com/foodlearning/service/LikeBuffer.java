@@ -0,0 +1,382 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.Post;
+import com.foodlearning.entity.PostLike;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+// Write-behind mode for likes (likes.write-behind.enabled). A like or unlike is journaled,
+// recorded in memory and acknowledged; a single flush thread writes the accumulated events
+// every flush-interval-ms, or sooner once flush-max-events are waiting, as one bulk insert into
+// post_likes followed by a recount of likesCount for the posts in the batch. Reads add the
+// buffered deltas on top of MongoDB.
+@Service
+public class LikeBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeBuffer.class);
+
+    public record LikeKey(String postId, String userId) {
+    }
+
+    // baseline: liked state before the first buffered event of this key; liked: latest state
+    private record Pending(boolean baseline, boolean liked) {
+    }
+
+    // Events of one key always land in the same stripe, so their order is kept; different users
+    // liking the same post mostly take different locks
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        Map<LikeKey, Pending> pending = new HashMap<>();
+        Map<LikeKey, Pending> inFlight = Map.of(); // drained, being written by the current flush
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final PostCache postCache;
+    private final boolean enabled;
+    private final int flushMaxEvents;
+    private final Stripe[] stripes;
+    private final Map<String, LongAdder> pendingDeltas = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferedEvents = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final LikeJournal journal;
+    private final ScheduledThreadPoolExecutor flushExecutor;
+
+    @Autowired
+    public LikeBuffer(MongoTemplate mongoTemplate, PostCache postCache,
+                      @Value("${likes.write-behind.enabled:false}") boolean enabled,
+                      @Value("${likes.write-behind.flush-interval-ms:500}") long flushIntervalMs,
+                      @Value("${likes.write-behind.flush-max-events:1000}") int flushMaxEvents,
+                      @Value("${likes.write-behind.stripes:64}") int stripeCount,
+                      @Value("${likes.write-behind.journal-dir:./like-journal}") String journalDir,
+                      @Value("${likes.write-behind.journal-sync:false}") boolean journalSync) throws IOException {
+        this.mongoTemplate = mongoTemplate;
+        this.postCache = postCache;
+        this.enabled = enabled;
+        this.flushMaxEvents = flushMaxEvents;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        if (!enabled) {
+            this.journal = null;
+            this.flushExecutor = null;
+            return;
+        }
+
+        this.journal = new LikeJournal(Paths.get(journalDir).toAbsolutePath().normalize(), journalSync);
+        replayJournal();
+        // Size-triggered flushes arriving during shutdown are dropped; the final flush covers them
+        this.flushExecutor = new ScheduledThreadPoolExecutor(1, task -> new Thread(task, "like-flush"),
+                new ThreadPoolExecutor.DiscardPolicy());
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean like(String postId, String userId, BooleanSupplier likedInDatabase) {
+        return record(new LikeKey(postId, userId), true, likedInDatabase);
+    }
+
+    public boolean unlike(String postId, String userId, BooleanSupplier likedInDatabase) {
+        return record(new LikeKey(postId, userId), false, likedInDatabase);
+    }
+
+    // Net like count change not yet written to the post
+    public long pendingDelta(String postId) {
+        LongAdder delta = pendingDeltas.get(postId);
+        return delta != null ? delta.sum() : 0;
+    }
+
+    // The user's buffered like state for the post, or null if MongoDB is up to date
+    public Boolean bufferedState(String postId, String userId) {
+        LikeKey key = new LikeKey(postId, userId);
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            return currentState(stripe, key);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Returns whether the event changed the user's like state. The database is only consulted
+    // when nothing is buffered for the key, and outside the lock; if a flush lands in between,
+    // the unique index still keeps post_likes and likesCount right, and the displayed estimate
+    // is back in line after the next flush.
+    private boolean record(LikeKey key, boolean liked, BooleanSupplier likedInDatabase) {
+        Boolean buffered = bufferedState(key.postId(), key.userId());
+        boolean stored = buffered != null ? buffered : likedInDatabase.getAsBoolean();
+
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Boolean current = currentState(stripe, key);
+            boolean before = current != null ? current : stored;
+            if (before == liked) {
+                return false;
+            }
+            // Journaled before it is acknowledged, so the event survives a crash
+            journal.append(liked, key.postId(), key.userId());
+            Pending previous = stripe.pending.get(key);
+            stripe.pending.put(key, new Pending(previous != null ? previous.baseline() : before, liked));
+            pendingDeltas.computeIfAbsent(key.postId(), id -> new LongAdder()).add(liked ? 1 : -1);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (bufferedEvents.incrementAndGet() >= flushMaxEvents && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(this::flushQuietly);
+        }
+        return true;
+    }
+
+    private Boolean currentState(Stripe stripe, LikeKey key) {
+        Pending pending = stripe.pending.get(key);
+        if (pending == null) {
+            pending = stripe.inFlight.get(key);
+        }
+        return pending != null ? pending.liked() : null;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException | IOException e) {
+            logger.error("Like buffer flush failed, will retry", e);
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        flushRequested.set(false);
+        bufferedEvents.set(0);
+        // Sealed first: every event in the drained maps is in a sealed segment
+        long sealed = journal.rotate();
+
+        Map<LikeKey, Pending> batch = new HashMap<>();
+        lockAll();
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.inFlight = stripe.pending;
+                stripe.pending = new HashMap<>();
+                batch.putAll(stripe.inFlight);
+            }
+        } finally {
+            unlockAll();
+        }
+
+        Map<LikeKey, Boolean> intents = new LinkedHashMap<>();
+        batch.forEach((key, pending) -> intents.put(key, pending.liked()));
+        try {
+            write(intents);
+        } catch (RuntimeException e) {
+            requeue(batch);
+            throw e;
+        }
+        journal.deleteThrough(sealed);
+        settle(batch);
+    }
+
+    // The flushed events are in MongoDB now: take them out of the read-side deltas
+    private void settle(Map<LikeKey, Pending> batch) {
+        Map<String, Long> flushed = new HashMap<>();
+        batch.forEach((key, pending) -> flushed.merge(key.postId(),
+                (long) ((pending.liked() ? 1 : 0) - (pending.baseline() ? 1 : 0)), Long::sum));
+
+        lockAll();
+        try {
+            flushed.forEach((postId, delta) -> {
+                LongAdder adder = pendingDeltas.get(postId);
+                if (adder != null) {
+                    adder.add(-delta);
+                    if (adder.sum() == 0) {
+                        pendingDeltas.remove(postId);
+                    }
+                }
+            });
+            for (Stripe stripe : stripes) {
+                stripe.inFlight = Map.of();
+            }
+        } finally {
+            unlockAll();
+        }
+        flushed.keySet().forEach(postCache::invalidate);
+    }
+
+    // A failed flush puts its events back in front of anything buffered since
+    private void requeue(Map<LikeKey, Pending> batch) {
+        lockAll();
+        try {
+            batch.forEach((key, flushing) -> {
+                Stripe stripe = stripeFor(key);
+                Pending newer = stripe.pending.get(key);
+                stripe.pending.put(key, newer != null
+                        ? new Pending(flushing.baseline(), newer.liked())
+                        : flushing);
+            });
+            for (Stripe stripe : stripes) {
+                stripe.inFlight = Map.of();
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // Applies the latest state of each (post, user), then sets likesCount of the touched posts from
+    // post_likes. Safe to repeat as a whole: existing likes are rejected by the unique index, missing
+    // ones delete nothing, and the counter is recounted rather than incremented, so a retry or journal
+    // replay after a failure part way through still leaves it exact. The flush thread is the only
+    // writer of likesCount while write-behind is on.
+    private void write(Map<LikeKey, Boolean> intents) {
+        if (intents.isEmpty()) {
+            return;
+        }
+        List<PostLike> inserts = new ArrayList<>();
+        Map<String, List<String>> unlikesByPost = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        intents.forEach((key, liked) -> {
+            if (liked) {
+                PostLike like = new PostLike();
+                like.setPostId(key.postId());
+                like.setUserId(key.userId());
+                like.setCreatedAt(now);
+                inserts.add(like);
+            } else {
+                unlikesByPost.computeIfAbsent(key.postId(), id -> new ArrayList<>()).add(key.userId());
+            }
+        });
+
+        if (!inserts.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PostLike.class).insert(inserts).execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    if (error.getCode() != 11000) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        unlikesByPost.forEach((postId, userIds) -> mongoTemplate.remove(new Query(Criteria.where("postId").is(postId)
+                .and("userId").in(userIds)), PostLike.class));
+
+        List<String> postIds = intents.keySet().stream().map(LikeKey::postId).distinct().toList();
+        removeOrphans(postIds);
+        recount(postIds);
+    }
+
+    // Sets likesCount of the given posts from post_likes. Also the repair path for the synchronous
+    // mode, whose insert and $inc are separate writes (see LikeCountRepairRunner).
+    public void recount(List<String> postIds) {
+        if (postIds.isEmpty()) {
+            return;
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("postId").in(postIds)),
+                Aggregation.group("postId").count().as("count"));
+        Map<String, Integer> counts = new HashMap<>();
+        for (Document count : mongoTemplate.aggregate(aggregation, PostLike.class, Document.class)
+                .getMappedResults()) {
+            counts.put(count.getString("_id"), count.get("count", Number.class).intValue());
+        }
+
+        BulkOperations counters = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+        for (String postId : postIds) {
+            counters.updateOne(new Query(Criteria.where("_id").is(postId)),
+                    new Update().set("likesCount", counts.getOrDefault(postId, 0)));
+        }
+        counters.execute();
+    }
+
+    // Likes buffered for posts deleted before the flush
+    private void removeOrphans(List<String> postIds) {
+        Query existing = new Query(Criteria.where("_id").in(postIds));
+        existing.fields().include("_id");
+        Set<String> live = new HashSet<>();
+        mongoTemplate.find(existing, Post.class).forEach(post -> live.add(post.getId()));
+        List<String> deleted = postIds.stream().filter(id -> !live.contains(id)).toList();
+        if (!deleted.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("postId").in(deleted)), PostLike.class);
+        }
+    }
+
+    // Events journaled before a crash or shutdown; only the last state of each key matters
+    private void replayJournal() throws IOException {
+        long sealed = journal.rotate();
+        Map<LikeKey, Boolean> intents = new LinkedHashMap<>();
+        journal.replayThrough(sealed, (liked, postId, userId) -> intents.put(new LikeKey(postId, userId), liked));
+        if (!intents.isEmpty()) {
+            write(intents);
+            logger.info("Replayed {} journaled like events", intents.size());
+        }
+        journal.deleteThrough(sealed);
+    }
+
+    private Stripe stripeFor(LikeKey key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    private void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Still in the journal; replayed on the next start
+            logger.error("Final like flush failed", e);
+        }
+        journal.close();
+    }
+}
@@ -0,0 +1,55 @@
+package com.foodlearning.service;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Recounts Post.likesCount from post_likes for every post. With write-behind off, a like is a
+// post_likes write followed by a separate $inc, so a crash in between leaves the counter off;
+// switch this on for the next start to repair it. Runs before the web server accepts requests,
+// so no live $inc can land between a post's recount and its $set.
+@Component
+@ConditionalOnProperty(name = "migrations.like-counts.enabled", havingValue = "true")
+public class LikeCountRepairRunner implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeCountRepairRunner.class);
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private LikeBuffer likeBuffer;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Query all = new Query();
+        all.fields().include("_id");
+
+        int recounted = 0;
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        try (Stream<Document> posts = mongoTemplate.stream(all, Document.class, "posts")) {
+            for (Document post : (Iterable<Document>) posts::iterator) {
+                batch.add(post.getObjectId("_id").toHexString());
+                if (batch.size() == BATCH_SIZE) {
+                    likeBuffer.recount(batch);
+                    recounted += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        likeBuffer.recount(batch);
+        recounted += batch.size();
+        logger.info("Recounted likes of {} posts", recounted);
+    }
+}
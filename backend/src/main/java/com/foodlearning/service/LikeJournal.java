@@ -0,0 +1,126 @@
+package com.foodlearning.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Append-only log of buffered like/unlike events, split into numbered segments. Each flush seals
+// the current segment; sealed segments are deleted once their events are in MongoDB, and any
+// left over after a crash are replayed in order on startup.
+public class LikeJournal implements AutoCloseable {
+
+    private static final String PREFIX = "likes-";
+    private static final String SUFFIX = ".log";
+
+    @FunctionalInterface
+    public interface EventHandler {
+        void onEvent(boolean liked, String postId, String userId);
+    }
+
+    private final Path directory;
+    private final boolean sync;
+    private long segment;
+    private FileChannel channel;
+
+    public LikeJournal(Path directory, boolean sync) throws IOException {
+        this.directory = directory;
+        this.sync = sync;
+        Files.createDirectories(directory);
+        List<Long> existing = segments();
+        this.segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+        open();
+    }
+
+    // One line per event: "L <postId> <userId>" or "U <postId> <userId>"
+    public synchronized void append(boolean liked, String postId, String userId) {
+        byte[] line = ((liked ? "L " : "U ") + postId + " " + userId + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal like event", e);
+        }
+    }
+
+    // Starts a new segment and returns the number of the sealed one
+    public synchronized long rotate() throws IOException {
+        channel.close();
+        long sealed = segment++;
+        open();
+        return sealed;
+    }
+
+    public void deleteThrough(long sealed) throws IOException {
+        for (long number : segments()) {
+            if (number <= sealed) {
+                Files.deleteIfExists(path(number));
+            }
+        }
+    }
+
+    // Feeds every event of the segments up to and including the given one to the handler, oldest first
+    public void replayThrough(long sealed, EventHandler handler) throws IOException {
+        for (long number : segments()) {
+            if (number > sealed) {
+                break;
+            }
+            byte[] content = Files.readAllBytes(path(number));
+            // Only newline-terminated lines are complete; a torn last line from a crash mid-write
+            // can still split into three fields (e.g. cut inside the userId), so it is dropped whole
+            int end = content.length;
+            while (end > 0 && content[end - 1] != '\n') {
+                end--;
+            }
+            for (String line : new String(content, 0, end, StandardCharsets.UTF_8).split("\n")) {
+                String[] parts = line.split(" ");
+                if (parts.length == 3 && (parts[0].equals("L") || parts[0].equals("U"))) {
+                    handler.onEvent(parts[0].equals("L"), parts[1], parts[2]);
+                }
+            }
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            numbers.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                            // not one of ours
+                        }
+                    });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path path(long number) {
+        return directory.resolve(PREFIX + number + SUFFIX);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,65 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.PostLike;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+// Moves legacy embedded Post.likedBy arrays into post_likes. Idempotent: likes are upserted
+// on (postId, userId) and the array is removed once copied.
+@Component
+@ConditionalOnProperty(name = "migrations.post-likes.enabled", havingValue = "true")
+public class LikeMigrationRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeMigrationRunner.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query legacy = new Query(Criteria.where("likedBy").exists(true));
+        legacy.fields().include("likedBy", "createdAt");
+
+        int migrated = 0;
+        try (Stream<Document> posts = mongoTemplate.stream(legacy, Document.class, "posts")) {
+            for (Document post : (Iterable<Document>) posts::iterator) {
+                migratePost(post);
+                migrated++;
+            }
+        }
+        if (migrated > 0) {
+            logger.info("Migrated embedded likes of {} posts into post_likes", migrated);
+        }
+    }
+
+    private void migratePost(Document post) {
+        String postId = post.getObjectId("_id").toHexString();
+        List<String> likedBy = post.getList("likedBy", String.class, List.of());
+
+        if (!likedBy.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PostLike.class);
+            for (String userId : likedBy) {
+                bulk.upsert(new Query(Criteria.where("postId").is(postId).and("userId").is(userId)),
+                        new Update().setOnInsert("createdAt", post.getDate("createdAt")));
+            }
+            bulk.execute();
+        }
+
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(post.getObjectId("_id"))),
+                new Update().unset("likedBy").set("likesCount", likedBy.size()), "posts");
+    }
+}
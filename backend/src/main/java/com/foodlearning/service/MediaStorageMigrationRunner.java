@@ -0,0 +1,112 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.MediaFile;
+import com.foodlearning.storage.MediaStorage;
+import com.foodlearning.storage.MediaStorageRegistry;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.stream.Stream;
+
+// Two idempotent steps:
+// 1. Catalogs GridFS files uploaded before media_files existed, under their existing ids, so
+//    Post.imageIds/videoId keep working. Catalogued blobs are marked so later runs skip them.
+//    FileStorageService catalogs the same way on first read, so this step only saves that lookup.
+// 2. Copies every file that isn't on the configured media.storage.backend across to it, flips
+//    its catalog entry and then deletes the old copy. Reads follow the catalog entry, so files
+//    stay servable throughout and an interrupted run just resumes.
+@Component
+@ConditionalOnProperty(name = "migrations.media-storage.enabled", havingValue = "true")
+public class MediaStorageMigrationRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaStorageMigrationRunner.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MediaStorageRegistry storageRegistry;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        catalogLegacyGridFsFiles();
+        moveToPrimaryBackend();
+    }
+
+    private void catalogLegacyGridFsFiles() {
+        Query legacy = new Query(Criteria.where("metadata.catalogued").exists(false));
+        int catalogued = 0;
+        try (Stream<Document> files = mongoTemplate.stream(legacy, Document.class, "fs.files")) {
+            for (Document file : (Iterable<Document>) files::iterator) {
+                fileStorageService.catalogGridFsFile(file);
+                catalogued++;
+            }
+        }
+        if (catalogued > 0) {
+            logger.info("Catalogued {} legacy GridFS files into media_files", catalogued);
+        }
+    }
+
+    private void moveToPrimaryBackend() {
+        MediaStorage target = storageRegistry.primary();
+        Query elsewhere = new Query(Criteria.where("backend").ne(target.name()));
+
+        int moved = 0;
+        int failed = 0;
+        try (Stream<MediaFile> files = mongoTemplate.stream(elsewhere, MediaFile.class)) {
+            for (MediaFile file : (Iterable<MediaFile>) files::iterator) {
+                if (!storageRegistry.isConfigured(file.getBackend())) {
+                    failed++;
+                    continue;
+                }
+                try {
+                    move(file, storageRegistry.of(file), target);
+                    moved++;
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not move media file {} from {} to {}",
+                            file.getId(), file.getBackend(), target.name(), e);
+                    failed++;
+                }
+            }
+        }
+        if (moved > 0 || failed > 0) {
+            logger.info("Moved {} media files to {}, {} left where they are", moved, target.name(), failed);
+        }
+    }
+
+    private void move(MediaFile file, MediaStorage source, MediaStorage target) throws IOException {
+        Resource resource = source.load(file.getId(), file.getLength());
+        if (resource == null) {
+            logger.warn("Media file {} has no bytes on {}", file.getId(), source.name());
+            return;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            target.put(file.getId(), in, file.getLength(), file.getContentType());
+        }
+        // Only flip entries still pointing at the source; one deleted meanwhile leaves a stray copy
+        long flipped = mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(file.getId()).and("backend").is(source.name())),
+                new Update().set("backend", target.name()), MediaFile.class).getModifiedCount();
+        if (flipped > 0) {
+            source.delete(file.getId());
+        } else {
+            target.delete(file.getId());
+        }
+    }
+}
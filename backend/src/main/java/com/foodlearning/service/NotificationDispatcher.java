@@ -0,0 +1,256 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.Notification;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Takes notification writes off the request path: callers enqueue, worker threads drain the
+// bounded queue and insert in batches (insertMany). Aggregated types (likes, comments by default)
+// are folded into one rolling notification per recipient/entity/time window instead.
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final long POLL_MILLIS = 200;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<PendingNotification> queue;
+    private final int workerCount;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+    private final ExecutorService workers;
+
+    private final boolean aggregationEnabled;
+    private final Set<String> aggregatedTypes;
+    private final long aggregationWindowMillis;
+    private final int maxRecentSenders;
+
+    private volatile boolean running = true;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder writtenByCaller = new LongAdder();
+    private volatile long lastBatchLagMillis;
+
+    @Autowired
+    public NotificationDispatcher(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                                  @Value("${notifications.dispatcher.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${notifications.dispatcher.workers:2}") int workerCount,
+                                  @Value("${notifications.dispatcher.batch-size:500}") int batchSize,
+                                  @Value("${notifications.dispatcher.offer-timeout-ms:50}") long offerTimeoutMillis,
+                                  @Value("${notifications.dispatcher.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis,
+                                  @Value("${notifications.aggregation.enabled:true}") boolean aggregationEnabled,
+                                  @Value("${notifications.aggregation.types:like,comment}") Set<String> aggregatedTypes,
+                                  @Value("${notifications.aggregation.window-minutes:60}") long aggregationWindowMinutes,
+                                  @Value("${notifications.aggregation.max-recent-senders:5}") int maxRecentSenders) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.aggregationEnabled = aggregationEnabled;
+        this.aggregatedTypes = aggregatedTypes;
+        this.aggregationWindowMillis = TimeUnit.MINUTES.toMillis(aggregationWindowMinutes);
+        this.maxRecentSenders = maxRecentSenders;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount,
+                task -> new Thread(task, "notification-writer-" + threadIndex.incrementAndGet()));
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::drainLoop);
+        }
+    }
+
+    public void enqueue(Notification notification) {
+        PendingNotification pending = new PendingNotification(notification, System.nanoTime());
+        if (running) {
+            try {
+                if (queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    enqueued.increment();
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Queue saturated (or shutting down): push back by writing on the caller's thread
+        writtenByCaller.increment();
+        writeBatch(List.of(pending));
+    }
+
+    private void drainLoop() {
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingNotification first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingNotification> batch) {
+        List<Notification> notifications = batch.stream().map(PendingNotification::notification).toList();
+        try {
+            List<Notification> inserts = new ArrayList<>();
+            Map<String, List<Notification>> groups = new LinkedHashMap<>();
+            for (Notification notification : notifications) {
+                if (aggregationEnabled && aggregatedTypes.contains(notification.getType())) {
+                    groups.computeIfAbsent(groupKey(notification), key -> new ArrayList<>()).add(notification);
+                } else {
+                    inserts.add(notification);
+                }
+            }
+            if (!inserts.isEmpty()) {
+                mongoTemplate.insert(inserts, Notification.class);
+            }
+            if (!groups.isEmpty()) {
+                upsertGroups(groups);
+            }
+            written.add(batch.size());
+            lastBatchLagMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batch.get(0).enqueuedAt());
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            logger.error("Failed to write {} notifications", batch.size(), e);
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(new NotificationsWrittenEvent(notifications));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish {} written notifications", notifications.size(), e);
+        }
+    }
+
+    // Key of the rolling notification an event folds into
+    private String groupKey(Notification notification) {
+        long window = notification.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                / aggregationWindowMillis;
+        return notification.getUserId() + ":" + notification.getType() + ":"
+                + notification.getRelatedEntityId() + ":" + window;
+    }
+
+    // Events sharing a key are pre-merged, so each group is a single $inc/$push upsert
+    private void upsertGroups(Map<String, List<Notification>> groups) {
+        List<Query> queries = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        groups.forEach((key, events) -> {
+            queries.add(new Query(Criteria.where("groupKey").is(key)));
+            updates.add(groupUpdate(events));
+        });
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class);
+        for (int i = 0; i < queries.size(); i++) {
+            bulk.upsert(queries.get(i), updates.get(i));
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // Two writers racing to create the same group: the loser retries as a plain update
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                mongoTemplate.upsert(queries.get(error.getIndex()), updates.get(error.getIndex()), Notification.class);
+            }
+        }
+    }
+
+    private Update groupUpdate(List<Notification> events) {
+        Notification first = events.get(0);
+        Notification latest = events.get(events.size() - 1);
+        Update update = new Update()
+                .setOnInsert("userId", first.getUserId())
+                .setOnInsert("type", first.getType())
+                .setOnInsert("relatedEntityId", first.getRelatedEntityId())
+                .set("senderId", latest.getSenderId())
+                .set("message", latest.getMessage())
+                .set("read", false)
+                .unset("readAt")
+                .set("createdAt", latest.getCreatedAt())
+                .inc("count", events.size());
+        update.push("recentSenderIds")
+                .slice(-maxRecentSenders)
+                .each(events.stream().map(Notification::getSenderId).toArray());
+        return update;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            logger.warn("Notification workers did not drain within {} ms", shutdownTimeoutMillis);
+            workers.shutdownNow();
+        }
+        List<PendingNotification> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(remaining);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        PendingNotification oldest = queue.peek();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("queueDepth", queue.size());
+        result.put("remainingCapacity", queue.remainingCapacity());
+        result.put("enqueued", enqueued.sum());
+        result.put("written", written.sum());
+        result.put("writtenByCaller", writtenByCaller.sum());
+        result.put("failed", failed.sum());
+        result.put("lastBatchLagMillis", lastBatchLagMillis);
+        result.put("oldestPendingAgeMillis", oldest == null ? 0
+                : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedAt()));
+        return result;
+    }
+
+    private record PendingNotification(Notification notification, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.foodlearning.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Queue depth, throughput and lag of the async notification writer at /actuator/notificationpipeline
+@Component
+@Endpoint(id = "notificationpipeline")
+public class NotificationPipelineEndpoint {
+
+    private final NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    public NotificationPipelineEndpoint(NotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return notificationDispatcher.stats();
+    }
+}
@@ -1,26 +1,75 @@
 package com.foodlearning.service;
 
 import com.foodlearning.dto.NotificationDTO;
+import com.foodlearning.dto.PageDTO;
+import com.foodlearning.dto.UserSummaryDTO;
 import com.foodlearning.entity.Notification;
 import com.foodlearning.repo.NotificationRepository;
-import com.foodlearning.repo.UserRepository;
+import com.foodlearning.util.CursorCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class NotificationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+
     @Autowired
     private NotificationRepository notificationRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserSummaryService userSummaryService;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private NotificationStreamRegistry notificationStreamRegistry;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${notifications.stream.push-threads:2}")
+    private int pushThreads;
+
+    @Value("${notifications.stream.push-queue-capacity:10000}")
+    private int pushQueueCapacity;
 
-    public Notification createNotification(String userId, String senderId, String type, 
-                                         String message, String relatedEntityId) {
+    private ThreadPoolExecutor pushExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // A full queue drops the push rather than stalling the writer; the next event or a
+        // reconnect brings the client's unread count up to date
+        pushExecutor = new ThreadPoolExecutor(pushThreads, pushThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(pushQueueCapacity),
+                task -> new Thread(task, "notification-push-" + threadIndex.incrementAndGet()),
+                (task, executor) -> logger.warn("Notification push queue full, dropping a push"));
+    }
+
+    // Queued for asynchronous batch insert; callers don't wait on the notifications collection
+    public void createNotification(String userId, String senderId, String type,
+                                   String message, String relatedEntityId) {
         Notification notification = new Notification();
         notification.setUserId(userId);
         notification.setSenderId(senderId);
@@ -29,17 +78,61 @@ public class NotificationService {
         notification.setRelatedEntityId(relatedEntityId);
         notification.setRead(false);
         notification.setCreatedAt(LocalDateTime.now());
-        return notificationRepository.save(notification);
+        notificationDispatcher.enqueue(notification);
+    }
+
+    // Pushes freshly written notifications, and the new unread count, to recipients with an open stream.
+    // Aggregated likes/comments are pushed as the event that bumped the rolling entry. Runs on the
+    // push executor so DTO conversion, count queries and slow clients don't hold up the writer.
+    @EventListener
+    public void onNotificationsWritten(NotificationsWrittenEvent event) {
+        pushExecutor.execute(() -> {
+            try {
+                push(event);
+            } catch (RuntimeException e) {
+                logger.error("Notification push failed", e);
+            }
+        });
+    }
+
+    private void push(NotificationsWrittenEvent event) {
+        List<Notification> live = event.notifications().stream()
+                .filter(notification -> notificationStreamRegistry.hasSubscribers(notification.getUserId()))
+                .toList();
+        if (live.isEmpty()) {
+            return;
+        }
+        convertToDTOs(live).forEach(dto -> notificationStreamRegistry.send(dto.getUserId(), "notification", dto));
+        live.stream().map(Notification::getUserId).distinct().forEach(this::pushUnreadCount);
     }
 
-    public List<NotificationDTO> getUserNotifications(String userId) {
-        List<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return notifications.stream().map(this::convertToDTO).collect(Collectors.toList());
+    public void pushUnreadCount(String userId) {
+        if (notificationStreamRegistry.hasSubscribers(userId)) {
+            notificationStreamRegistry.send(userId, "unread-count", getUnreadCount(userId));
+        }
     }
 
-    public List<NotificationDTO> getUnreadNotifications(String userId) {
-        List<Notification> notifications = notificationRepository.findByUserIdAndReadFalseOrderByCreatedAtDesc(userId);
-        return notifications.stream().map(this::convertToDTO).collect(Collectors.toList());
+    // Newest first, keyset-paginated on (createdAt, _id); served by inbox_idx / unread_idx
+    public PageDTO<NotificationDTO> getInboxPage(String userId, String cursor, int limit, boolean unreadOnly) {
+        int pageSize = CursorCodec.clampPageSize(limit);
+
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (unreadOnly) {
+            criteria.and("read").is(false);
+        }
+        if (CursorCodec.isPresent(cursor)) {
+            CursorCodec.Cursor position = CursorCodec.decode(cursor);
+            criteria.orOperator(
+                    Criteria.where("createdAt").lt(position.createdAt()),
+                    Criteria.where("createdAt").is(position.createdAt()).and("_id").lt(position.id()));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(pageSize + 1);
+
+        return PageDTO.of(mongoTemplate.find(query, Notification.class), pageSize,
+                notification -> CursorCodec.encode(notification.getCreatedAt(), notification.getId()),
+                this::convertToDTOs);
     }
 
     public long getUnreadCount(String userId) {
@@ -50,16 +143,55 @@ public class NotificationService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
         notification.setRead(true);
-        return convertToDTO(notificationRepository.save(notification));
+        notification.setReadAt(LocalDateTime.now());
+        NotificationDTO dto = convertToDTO(notificationRepository.save(notification));
+        pushUnreadCount(notification.getUserId());
+        return dto;
     }
 
-    public void markAllAsRead(String userId) {
-        List<Notification> unread = notificationRepository.findByUserIdAndReadFalse(userId);
-        unread.forEach(n -> n.setRead(true));
-        notificationRepository.saveAll(unread);
-    } 
+    // One server-side updateMany; upTo (inclusive) limits it to notifications created at or before that time
+    public long markAllAsRead(String userId, LocalDateTime upTo) {
+        Criteria criteria = Criteria.where("userId").is(userId).and("read").is(false);
+        if (upTo != null) {
+            criteria.and("createdAt").lte(upTo);
+        }
+        return markRead(userId, new Query(criteria));
+    }
+
+    // Only the caller's own unread notifications among the given ids are touched
+    public long markAsRead(String userId, Collection<String> notificationIds) {
+        if (notificationIds == null || notificationIds.isEmpty()) {
+            return 0;
+        }
+        Query query = new Query(Criteria.where("_id").in(notificationIds)
+                .and("userId").is(userId)
+                .and("read").is(false));
+        return markRead(userId, query);
+    }
+
+    private long markRead(String userId, Query query) {
+        Update update = new Update().set("read", true).set("readAt", LocalDateTime.now());
+        long modified = mongoTemplate.updateMulti(query, update, Notification.class).getModifiedCount();
+        if (modified > 0) {
+            pushUnreadCount(userId);
+        }
+        return modified;
+    }
 
     private NotificationDTO convertToDTO(Notification notification) {
+        return convertToDTOs(List.of(notification)).get(0);
+    }
+
+    // Sender details for the whole batch come from one bulk lookup
+    private List<NotificationDTO> convertToDTOs(List<Notification> notifications) {
+        Map<String, UserSummaryDTO> senders = userSummaryService.getSummaries(
+                notifications.stream().map(Notification::getSenderId).toList());
+        return notifications.stream()
+                .map(notification -> toDTO(notification, senders.get(notification.getSenderId())))
+                .toList();
+    }
+
+    private NotificationDTO toDTO(Notification notification, UserSummaryDTO sender) {
         NotificationDTO dto = new NotificationDTO();
         dto.setId(notification.getId());
         dto.setUserId(notification.getUserId());
@@ -68,13 +200,21 @@ public class NotificationService {
         dto.setRelatedEntityId(notification.getRelatedEntityId());
         dto.setRead(notification.isRead());
         dto.setCreatedAt(notification.getCreatedAt());
-        
+        dto.setCount(notification.getCount());
+        dto.setRecentSenderIds(notification.getRecentSenderIds());
+
         // Add sender details
-        userRepository.findById(notification.getSenderId()).ifPresent(user -> {
-            dto.setSenderName(user.getName());
-            dto.setSenderPhoto(user.getPhoto());
-        });
-        
+        if (sender != null) {
+            dto.setSenderName(sender.getName());
+            dto.setSenderPhoto(sender.getPhoto());
+        }
+
         return dto;
     }
-}
\ No newline at end of file
+
+    @PreDestroy
+    public void shutdownPushExecutor() throws InterruptedException {
+        pushExecutor.shutdown();
+        pushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,95 @@
+package com.foodlearning.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// In-memory registry of open notification streams per user. Emitters are async servlet
+// responses, so an idle connection holds no request thread.
+@Service
+public class NotificationStreamRegistry {
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final long emitterTimeoutMillis;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            task -> new Thread(task, "notification-stream-heartbeat"));
+
+    public NotificationStreamRegistry(@Value("${notifications.stream.timeout-ms:1800000}") long emitterTimeoutMillis,
+                                      @Value("${notifications.stream.heartbeat-seconds:25}") long heartbeatSeconds) {
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        // Comment frames keep proxies from closing idle connections and flush out dead ones
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    public SseEmitter subscribe(String userId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        subscribers.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(emitter);
+
+        Runnable remove = () -> removeEmitter(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    public boolean hasSubscribers(String userId) {
+        return subscribers.containsKey(userId);
+    }
+
+    public void send(String userId, String eventName, Object data) {
+        Set<SseEmitter> emitters = subscribers.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(data));
+            } catch (IOException | IllegalStateException e) {
+                removeEmitter(userId, emitter);
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        subscribers.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("keepalive"));
+                } catch (IOException | IllegalStateException e) {
+                    removeEmitter(userId, emitter);
+                }
+            }
+        });
+    }
+
+    private void removeEmitter(String userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (key, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("users", subscribers.size());
+        result.put("connections", subscribers.values().stream().mapToInt(Set::size).sum());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        subscribers.clear();
+    }
+}
@@ -0,0 +1,26 @@
+package com.foodlearning.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Open notification streams at /actuator/notificationstreams
+@Component
+@Endpoint(id = "notificationstreams")
+public class NotificationStreamsEndpoint {
+
+    private final NotificationStreamRegistry notificationStreamRegistry;
+
+    @Autowired
+    public NotificationStreamsEndpoint(NotificationStreamRegistry notificationStreamRegistry) {
+        this.notificationStreamRegistry = notificationStreamRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return notificationStreamRegistry.stats();
+    }
+}
@@ -0,0 +1,9 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.Notification;
+
+import java.util.List;
+
+// Published by NotificationDispatcher once a batch has been persisted
+public record NotificationsWrittenEvent(List<Notification> notifications) {
+}
@@ -0,0 +1,111 @@
+package com.foodlearning.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodlearning.entity.Post;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.function.Function;
+
+// Read-through cache of single posts. The first tier holds Post objects in a bounded Caffeine
+// cache (W-TinyLFU admission); the optional second tier keeps many more posts as serialized JSON
+// in direct buffers outside the Java heap. Cached posts are shared and must not be mutated.
+@Service
+public class PostCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCache.class);
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Post> posts;
+    private final Cache<String, ByteBuffer> offHeap; // null when the second tier is disabled
+
+    @Autowired
+    public PostCache(ObjectMapper objectMapper,
+                     @Value("${posts.cache.max-size:10000}") long maxSize,
+                     @Value("${posts.cache.ttl-seconds:60}") long ttlSeconds,
+                     @Value("${posts.cache.off-heap.enabled:false}") boolean offHeapEnabled,
+                     @Value("${posts.cache.off-heap.max-bytes:67108864}") long offHeapMaxBytes) {
+        this.objectMapper = objectMapper;
+        this.posts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        // Bounded by serialized size; a dropped buffer's memory is released when it is collected
+        this.offHeap = offHeapEnabled
+                ? Caffeine.newBuilder()
+                        .maximumWeight(offHeapMaxBytes)
+                        .weigher((String id, ByteBuffer bytes) -> bytes.capacity())
+                        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                        .<String, ByteBuffer>build()
+                : null;
+    }
+
+    // Concurrent misses on the same id wait for a single load; a null from the loader (post not
+    // found) is returned without being cached
+    public Post get(String id, Function<String, Post> loader) {
+        return posts.get(id, key -> {
+            Post post = readOffHeap(key);
+            if (post == null) {
+                post = loader.apply(key);
+                if (post != null) {
+                    writeOffHeap(key, post);
+                }
+            }
+            return post;
+        });
+    }
+
+    // Off-heap first: a heap miss in between would otherwise be refilled from the stale off-heap
+    // copy. The heap invalidate then waits for an in-flight load of the same id; that load may have
+    // read the old document and written it off-heap, so the off-heap entry is dropped once more.
+    public void invalidate(String id) {
+        if (offHeap != null) {
+            offHeap.invalidate(id);
+        }
+        posts.invalidate(id);
+        if (offHeap != null) {
+            offHeap.invalidate(id);
+        }
+    }
+
+    private Post readOffHeap(String id) {
+        if (offHeap == null) {
+            return null;
+        }
+        ByteBuffer stored = offHeap.getIfPresent(id);
+        if (stored == null) {
+            return null;
+        }
+        byte[] json = new byte[stored.capacity()];
+        stored.duplicate().get(json);
+        try {
+            return objectMapper.readValue(json, Post.class);
+        } catch (IOException e) {
+            logger.warn("Dropping unreadable cached post {}", id, e);
+            offHeap.invalidate(id);
+            return null;
+        }
+    }
+
+    private void writeOffHeap(String id, Post post) {
+        if (offHeap == null) {
+            return;
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(post);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(json.length);
+            buffer.put(json).flip();
+            offHeap.put(id, buffer);
+        } catch (IOException e) {
+            logger.warn("Could not serialize post {} for the off-heap cache", id, e);
+        }
+    }
+}
@@ -1,17 +1,37 @@
 package com.foodlearning.service;
 
+import com.foodlearning.dto.LikeResultDTO;
+import com.foodlearning.dto.PageDTO;
 import com.foodlearning.dto.PostDTO;
+import com.foodlearning.dto.UserSummaryDTO;
 import com.foodlearning.entity.Post;
+import com.foodlearning.entity.PostLike;
 import com.foodlearning.exception.PostNotFoundException;
+import com.foodlearning.repo.CommentRepository;
+import com.foodlearning.repo.PostLikeRepository;
 import com.foodlearning.repo.PostRepository;
-import com.foodlearning.repo.UserRepository;
+import com.foodlearning.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.time.LocalDateTime;
 
 @Service
@@ -21,19 +41,20 @@ public class PostService {
     private PostRepository postRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private FileStorageService fileStorageService;
 
     @Autowired
-    private FileStorageService fileStorageService;
+    private TimelineService timelineService;
 
     public Post createPost(String userId, String content, List<MultipartFile> images, MultipartFile video)
             throws IOException {
-        if (!userRepository.existsById(userId)) {
-            throw new RuntimeException("User not found");
-        }
+        UserSummaryDTO author = userSummaryService.getSummary(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
 
         Post post = new Post();
         post.setUserId(userId);
+        post.setAuthorName(author.getName());
+        post.setAuthorPhoto(author.getPhoto());
         post.setContent(content);
         post.setCreatedAt(LocalDateTime.now());
 
@@ -51,34 +72,97 @@ public class PostService {
             post.setVideoId(fileStorageService.storeFile(video, userId));
         }
 
-        return postRepository.save(post);
+        Post saved;
+        try {
+            saved = postRepository.save(post);
+        } catch (RuntimeException e) {
+            // Don't leave orphaned media behind when the post itself can't be written
+            post.getImageIds().forEach(fileStorageService::deleteFile);
+            if (post.getVideoId() != null) {
+                fileStorageService.deleteFile(post.getVideoId());
+            }
+            throw e;
+        }
+        timelineService.fanOut(saved);
+        return saved;
     }
 
     public Post getPostById(String id) {
-        return postRepository.findById(id)
-                .orElseThrow(() -> new PostNotFoundException("Post not found with id: " + id));
+        Post post = postCache.get(id, key -> postRepository.findById(key).orElse(null));
+        if (post == null) {
+            throw new PostNotFoundException("Post not found with id: " + id);
+        }
+        return post;
     }
 
     public List<Post> getAllPosts() {
         return postRepository.findAllByOrderByCreatedAtDesc();
     }
 
+    public PageDTO<PostDTO> getFeedPage(String cursor, int limit, String viewerId) {
+        return getFeedPage(cursor, limit, page -> convertToDTOs(page, viewerId));
+    }
+
+    // Same page of posts with a caller-supplied conversion (the enriched feed cards)
+    public PageDTO<PostDTO> getFeedPage(String cursor, int limit, Function<List<Post>, List<PostDTO>> converter) {
+        int pageSize = CursorCodec.clampPageSize(limit);
+        Pageable fetch = PageRequest.of(0, pageSize + 1);
+
+        List<Post> rows;
+        if (CursorCodec.isPresent(cursor)) {
+            CursorCodec.Cursor position = CursorCodec.decode(cursor);
+            try (Stream<Post> stream = postRepository.streamFeedAfter(position.createdAt(), position.id(), fetch)) {
+                rows = stream.toList();
+            }
+        } else {
+            try (Stream<Post> stream = postRepository.streamFeed(fetch)) {
+                rows = stream.toList();
+            }
+        }
+
+        return PageDTO.of(rows, pageSize,
+                post -> CursorCodec.encode(post.getCreatedAt(), post.getId()),
+                converter);
+    }
+
+    // Personalized home timeline of followed authors, same cursor format as the global feed
+    public PageDTO<PostDTO> getTimelinePage(String userId, String cursor, int limit) {
+        return getTimelinePage(userId, cursor, limit, page -> convertToDTOs(page, userId));
+    }
+
+    public PageDTO<PostDTO> getTimelinePage(String userId, String cursor, int limit,
+                                            Function<List<Post>, List<PostDTO>> converter) {
+        int pageSize = CursorCodec.clampPageSize(limit);
+        CursorCodec.Cursor position = CursorCodec.isPresent(cursor) ? CursorCodec.decode(cursor) : null;
+        List<Post> rows = timelineService.readTimeline(userId, position, pageSize + 1);
+
+        return PageDTO.of(rows, pageSize,
+                post -> CursorCodec.encode(post.getCreatedAt(), post.getId()),
+                converter);
+    }
+
     public List<Post> getPostsByUserId(String userId) {
         return postRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
     public Post updatePost(String id, String content) {
-        return postRepository.findById(id)
-                .map(post -> {
-                    post.setContent(content);
-                    return postRepository.save(post);
-                })
-                .orElseThrow(() -> new PostNotFoundException("Post not found with id: " + id));
+        Post updated = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)),
+                new Update().set("content", content),
+                FindAndModifyOptions.options().returnNew(true), Post.class);
+        if (updated == null) {
+            throw new PostNotFoundException("Post not found with id: " + id);
+        }
+        postCache.invalidate(id);
+        return updated;
     }
 
     public void deletePost(String id) {
-        Post post = postRepository.findById(id)
-                .orElseThrow(() -> new PostNotFoundException("Post not found with id: " + id));
+        // Removing and reading in one step means concurrent deletes release the media only once
+        Post post = mongoTemplate.findAndRemove(new Query(Criteria.where("_id").is(id)), Post.class);
+        if (post == null) {
+            throw new PostNotFoundException("Post not found with id: " + id);
+        }
+        postCache.invalidate(id);
 
         // Delete associated files
         if (post.getImageIds() != null) {
@@ -88,77 +172,233 @@ public class PostService {
             fileStorageService.deleteFile(post.getVideoId());
         }
 
-        postRepository.deleteById(id);
+        postLikeRepository.deleteByPostId(id);
+        commentRepository.deleteByPostId(id);
+        timelineService.removePost(id);
     }
 
-    /*
-     * public Post likePost(String postId, String userId) {
-     * Post post = postRepository.findById(postId)
-     * .orElseThrow(() -> new PostNotFoundException("Post not found with id: " +
-     * postId));
-     * 
-     * if (!post.getLikedBy().contains(userId)) {
-     * post.getLikedBy().add(userId);
-     * post.setLikesCount(post.getLikesCount() + 1);
-     * return postRepository.save(post);
-     * }
-     * return post;
-     * }
-     */
-
     @Autowired
     private NotificationService notificationService;
 
-    public Post likePost(String postId, String userId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new PostNotFoundException("Post not found with id: " + postId));
-
-        if (!post.getLikedBy().contains(userId)) {
-            post.getLikedBy().add(userId);
-            post.setLikesCount(post.getLikesCount() + 1);
-
-            // Send notification to post owner
-            if (!post.getUserId().equals(userId)) { // Don't notify yourself
-                notificationService.createNotification(
-                        post.getUserId(),
-                        userId,
-                        "like",
-                        "liked your post",
-                        postId);
-            }
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PostLikeRepository postLikeRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
 
-            return postRepository.save(post);
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private LikeBuffer likeBuffer;
+
+    @Autowired
+    private UserSummaryService userSummaryService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    // The unique (postId, userId) index on post_likes decides whether this is a new like;
+    // only then is the denormalized counter on the post bumped. The two are separate writes,
+    // so a crash in between is repaired with migrations.like-counts (LikeCountRepairRunner).
+    public LikeResultDTO likePost(String postId, String userId) {
+        if (likeBuffer.isEnabled()) {
+            return bufferedLike(postId, userId, true);
         }
-        return post;
+        PostLike like = new PostLike();
+        like.setPostId(postId);
+        like.setUserId(userId);
+        like.setCreatedAt(LocalDateTime.now());
+        try {
+            postLikeRepository.insert(like);
+        } catch (DuplicateKeyException e) {
+            return likeResult(postId, currentLikesCount(postId), true);
+        }
+
+        Post updated = incrementLikes(postId, 1);
+        postCache.invalidate(postId);
+        if (updated == null) {
+            postLikeRepository.deleteByPostIdAndUserId(postId, userId);
+            throw new PostNotFoundException("Post not found with id: " + postId);
+        }
+
+        // Send notification to post owner
+        if (!updated.getUserId().equals(userId)) { // Don't notify yourself
+            notificationService.createNotification(
+                    updated.getUserId(),
+                    userId,
+                    "like",
+                    "liked your post",
+                    postId);
+        }
+        return likeResult(postId, updated.getLikesCount(), true);
     }
 
-    public Post unlikePost(String postId, String userId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new PostNotFoundException("Post not found with id: " + postId));
+    public LikeResultDTO unlikePost(String postId, String userId) {
+        if (likeBuffer.isEnabled()) {
+            return bufferedLike(postId, userId, false);
+        }
+        if (postLikeRepository.deleteByPostIdAndUserId(postId, userId) == 0) {
+            return likeResult(postId, currentLikesCount(postId), false);
+        }
+
+        Post updated = incrementLikes(postId, -1);
+        postCache.invalidate(postId);
+        if (updated == null) {
+            throw new PostNotFoundException("Post not found with id: " + postId);
+        }
+        return likeResult(postId, updated.getLikesCount(), false);
+    }
 
-        if (post.getLikedBy().contains(userId)) {
-            post.getLikedBy().remove(userId);
-            post.setLikesCount(post.getLikesCount() - 1);
-            return postRepository.save(post);
+    // Write-behind mode: the event is journaled and buffered, and the answer already includes it
+    private LikeResultDTO bufferedLike(String postId, String userId, boolean liked) {
+        Post post = getPostById(postId);
+        boolean changed = liked
+                ? likeBuffer.like(postId, userId, () -> postLikeRepository.existsByPostIdAndUserId(postId, userId))
+                : likeBuffer.unlike(postId, userId, () -> postLikeRepository.existsByPostIdAndUserId(postId, userId));
+        if (changed && liked && !post.getUserId().equals(userId)) {
+            notificationService.createNotification(post.getUserId(), userId, "like", "liked your post", postId);
         }
-        return post;
+        return likeResult(postId, likesCount(post), liked);
+    }
+
+    // Stored count plus likes still waiting in the write-behind buffer
+    private int likesCount(Post post) {
+        return (int) (post.getLikesCount() + likeBuffer.pendingDelta(post.getId()));
+    }
+
+    public PageDTO<UserSummaryDTO> getLikers(String postId, String cursor, int limit) {
+        int pageSize = CursorCodec.clampPageSize(limit);
+        Pageable fetch = PageRequest.of(0, pageSize + 1);
+
+        List<PostLike> rows;
+        if (CursorCodec.isPresent(cursor)) {
+            CursorCodec.Cursor position = CursorCodec.decode(cursor);
+            try (Stream<PostLike> stream = postLikeRepository.streamLikersAfter(
+                    postId, position.createdAt(), position.id(), fetch)) {
+                rows = stream.toList();
+            }
+        } else {
+            try (Stream<PostLike> stream = postLikeRepository.streamLikers(postId, fetch)) {
+                rows = stream.toList();
+            }
+        }
+
+        return PageDTO.of(rows, pageSize,
+                like -> CursorCodec.encode(like.getCreatedAt(), like.getId()),
+                page -> {
+                    Map<String, UserSummaryDTO> users = userSummaryService.getSummaries(
+                            page.stream().map(PostLike::getUserId).toList());
+                    return page.stream()
+                            .map(like -> users.get(like.getUserId()))
+                            .filter(Objects::nonNull)
+                            .toList();
+                });
+    }
+
+    // Returns the post (userId and likesCount only) after the update, or null if it doesn't exist
+    private Post incrementLikes(String postId, int delta) {
+        Query query = new Query(Criteria.where("_id").is(postId));
+        query.fields().include("userId", "likesCount");
+        return mongoTemplate.findAndModify(query, new Update().inc("likesCount", delta),
+                FindAndModifyOptions.options().returnNew(true), Post.class);
+    }
+
+    private int currentLikesCount(String postId) {
+        Query query = new Query(Criteria.where("_id").is(postId));
+        query.fields().include("likesCount");
+        Post post = mongoTemplate.findOne(query, Post.class);
+        if (post == null) {
+            throw new PostNotFoundException("Post not found with id: " + postId);
+        }
+        return likesCount(post);
+    }
+
+    private LikeResultDTO likeResult(String postId, int likesCount, boolean liked) {
+        LikeResultDTO result = new LikeResultDTO();
+        result.setPostId(postId);
+        result.setLikesCount(likesCount);
+        result.setLiked(liked);
+        return result;
     }
 
     public PostDTO convertToDTO(Post post) {
+        return convertToDTO(post, null);
+    }
+
+    public PostDTO convertToDTO(Post post, String viewerId) {
+        return convertToDTOs(List.of(post), viewerId).get(0);
+    }
+
+    // likedByMe for the whole batch comes from one post_likes query and the available image
+    // variants from one media_files query. Author name and photo are stored on the post; only
+    // rows written before that have their author looked up.
+    public List<PostDTO> convertToDTOs(List<Post> posts, String viewerId) {
+        Set<String> likedPostIds = likedPostIds(viewerId, posts);
+        Map<String, UserSummaryDTO> legacyAuthors = userSummaryService.getSummaries(posts.stream()
+                .filter(post -> post.getAuthorName() == null)
+                .map(Post::getUserId)
+                .toList());
+        Map<String, Set<String>> variants = imageVariantService.availableVariants(posts.stream()
+                .filter(post -> post.getImageIds() != null)
+                .flatMap(post -> post.getImageIds().stream())
+                .toList());
+        return posts.stream()
+                .map(post -> toDTO(post, likedPostIds.contains(post.getId()), legacyAuthors.get(post.getUserId()),
+                        variants))
+                .toList();
+    }
+
+    private Set<String> likedPostIds(String viewerId, List<Post> posts) {
+        if (viewerId == null || posts.isEmpty()) {
+            return Set.of();
+        }
+        List<String> postIds = posts.stream().map(Post::getId).toList();
+        Set<String> liked = postLikeRepository.findLikedPostIds(viewerId, postIds).stream()
+                .map(PostLike::getPostId)
+                .collect(Collectors.toCollection(HashSet::new));
+        if (likeBuffer.isEnabled()) {
+            // Likes and unlikes not flushed yet override what MongoDB says
+            for (String postId : postIds) {
+                Boolean buffered = likeBuffer.bufferedState(postId, viewerId);
+                if (buffered != null) {
+                    if (buffered) {
+                        liked.add(postId);
+                    } else {
+                        liked.remove(postId);
+                    }
+                }
+            }
+        }
+        return liked;
+    }
+
+    private PostDTO toDTO(Post post, boolean likedByMe, UserSummaryDTO legacyAuthor,
+                          Map<String, Set<String>> variants) {
         PostDTO dto = new PostDTO();
         dto.setId(post.getId());
         dto.setUserId(post.getUserId());
+        if (post.getAuthorName() != null) {
+            dto.setAuthorName(post.getAuthorName());
+            dto.setAuthorPhoto(post.getAuthorPhoto());
+        } else if (legacyAuthor != null) {
+            dto.setAuthorName(legacyAuthor.getName());
+            dto.setAuthorPhoto(legacyAuthor.getPhoto());
+        }
         dto.setContent(post.getContent());
-        dto.setLikesCount(post.getLikesCount());
-        dto.setLikedBy(post.getLikedBy());
-        dto.setComments(post.getComments());
+        dto.setLikesCount(likesCount(post));
+        dto.setLikedByMe(likedByMe);
+        dto.setCommentCount(post.getCommentCount());
         dto.setCreatedAt(post.getCreatedAt());
 
         // Generate URLs for images and video
         if (post.getImageIds() != null && !post.getImageIds().isEmpty()) {
-            dto.setImageUrls(post.getImageIds().stream()
-                    .map(id -> "/api/posts/media/" + id)
-                    .collect(Collectors.toList()));
+            dto.setImageUrls(mediaUrls(post.getImageIds(), "feed", variants));
+            dto.setThumbnailUrls(mediaUrls(post.getImageIds(), "thumb", variants));
+            dto.setFullImageUrls(mediaUrls(post.getImageIds(), "full", variants));
         }
 
         if (post.getVideoId() != null) {
@@ -167,4 +407,14 @@ public class PostService {
 
         return dto;
     }
-}
\ No newline at end of file
+
+    // The variant URL only once that variant exists. Unsupported formats never get one and fresh
+    // uploads are still being resized, so both get the original's URL, which caches normally.
+    private List<String> mediaUrls(List<String> fileIds, String variant, Map<String, Set<String>> variants) {
+        return fileIds.stream()
+                .map(id -> variants.getOrDefault(id, Set.of()).contains(variant)
+                        ? "/api/posts/media/" + id + "?variant=" + variant
+                        : "/api/posts/media/" + id)
+                .collect(Collectors.toList());
+    }
+}
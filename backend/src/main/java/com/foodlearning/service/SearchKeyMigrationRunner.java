@@ -0,0 +1,44 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.LearningPlan;
+import com.foodlearning.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+// Fills the nameLower typeahead key on users and learning plans written before it existed.
+// Runs server-side as one pipeline update per collection; documents that have it are skipped.
+@Component
+@ConditionalOnProperty(name = "migrations.search-keys.enabled", havingValue = "true")
+public class SearchKeyMigrationRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchKeyMigrationRunner.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfill(User.class);
+        backfill(LearningPlan.class);
+    }
+
+    private void backfill(Class<?> entityClass) {
+        Query missing = new Query(Criteria.where("name").type(2).and("nameLower").exists(false));
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("nameLower").toValue(StringOperators.valueOf("name").toLower());
+        long modified = mongoTemplate.updateMulti(missing, update, entityClass).getModifiedCount();
+        if (modified > 0) {
+            logger.info("Filled nameLower on {} {} documents", modified, entityClass.getSimpleName());
+        }
+    }
+}
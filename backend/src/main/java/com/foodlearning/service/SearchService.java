@@ -0,0 +1,172 @@
+package com.foodlearning.service;
+
+import com.foodlearning.dto.PageDTO;
+import com.foodlearning.dto.SearchHitDTO;
+import com.foodlearning.entity.LearningPlan;
+import com.foodlearning.entity.Post;
+import com.foodlearning.entity.User;
+import com.foodlearning.exception.InvalidSearchQueryException;
+import com.foodlearning.util.CursorCodec;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+// Ranked search over the MongoDB text indexes declared with @TextIndexed on Post, LearningPlan
+// and User. The indexes are maintained by MongoDB on every write, so there is nothing to sync.
+// Typeahead uses anchored prefix regexes on the indexed lowercase nameLower fields instead,
+// since text indexes only match whole (stemmed) words.
+@Service
+public class SearchService {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final int MAX_PREFIX_LENGTH = 50;
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxOffset;
+    private final int snippetLength;
+    private final Map<String, Target> targets;
+
+    private record Target(String collection, String[] fields, Function<Document, SearchHitDTO> toHit) {
+    }
+
+    @Autowired
+    public SearchService(MongoTemplate mongoTemplate,
+                         @Value("${search.max-offset:500}") int maxOffset,
+                         @Value("${search.snippet-length:160}") int snippetLength) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxOffset = maxOffset;
+        this.snippetLength = snippetLength;
+        this.targets = Map.of(
+                "post", new Target(mongoTemplate.getCollectionName(Post.class),
+                        new String[]{"content", "userId"},
+                        document -> hit("post", document, null,
+                                document.getString("content"), null, document.getString("userId"))),
+                "plan", new Target(mongoTemplate.getCollectionName(LearningPlan.class),
+                        new String[]{"name", "description", "userId"},
+                        document -> hit("plan", document, document.getString("name"),
+                                document.getString("description"), null, document.getString("userId"))),
+                "user", new Target(mongoTemplate.getCollectionName(User.class),
+                        new String[]{"name", "bio", "photo"},
+                        document -> hit("user", document, document.getString("name"),
+                                document.getString("bio"), document.getString("photo"), null)));
+    }
+
+    // type is post, plan, user or null for all three merged by per-type normalized score
+    public PageDTO<SearchHitDTO> search(String q, String type, String cursor, int limit) {
+        String text = q == null ? "" : q.strip();
+        if (text.isEmpty() || text.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidSearchQueryException("Search query must be 1-" + MAX_QUERY_LENGTH + " characters");
+        }
+        int pageSize = CursorCodec.clampPageSize(limit);
+        int offset = CursorCodec.isPresent(cursor) ? CursorCodec.decodeOffset(cursor) : 0;
+        if (offset >= maxOffset) {
+            return PageDTO.of(List.<SearchHitDTO>of(), pageSize, hit -> null, page -> page);
+        }
+
+        List<SearchHitDTO> rows;
+        if (type == null || type.isBlank() || type.equals("all")) {
+            // Each collection is ranked independently, so the merged window has to start at 0.
+            // Raw text scores depend on field weights and document length and are not comparable
+            // across collections, so each type is scaled by its own best score before merging.
+            int window = offset + pageSize + 1;
+            List<SearchHitDTO> merged = targets.values().stream()
+                    .flatMap(target -> normalize(textSearch(target, text, 0, window)).stream())
+                    .sorted(Comparator.comparingDouble(SearchHitDTO::getScore).reversed()
+                            .thenComparing(SearchHitDTO::getType)
+                            .thenComparing(SearchHitDTO::getId))
+                    .toList();
+            rows = merged.subList(Math.min(offset, merged.size()), Math.min(window, merged.size()));
+        } else {
+            Target target = targets.get(type);
+            if (target == null) {
+                throw new InvalidSearchQueryException("Unknown search type: " + type);
+            }
+            rows = textSearch(target, text, offset, pageSize + 1);
+        }
+
+        return PageDTO.of(rows, pageSize, hit -> CursorCodec.encodeOffset(offset + pageSize), page -> page);
+    }
+
+    // Users and learning plans whose name starts with the prefix, case-insensitively
+    public List<SearchHitDTO> suggest(String prefix, int limit) {
+        String normalized = prefix == null ? "" : prefix.strip().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty() || normalized.length() > MAX_PREFIX_LENGTH) {
+            throw new InvalidSearchQueryException("Prefix must be 1-" + MAX_PREFIX_LENGTH + " characters");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        String regex = "^" + normalized.replaceAll("[.*+?^${}()|\\[\\]\\\\]", "\\\\$0");
+
+        return List.of("user", "plan").stream()
+                .flatMap(type -> prefixSearch(type, regex, size).stream())
+                .sorted(Comparator.comparing(hit -> hit.getTitle().toLowerCase(Locale.ROOT)))
+                .limit(size)
+                .toList();
+    }
+
+    private List<SearchHitDTO> textSearch(Target target, String text, int skip, int limit) {
+        TextQuery query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text)).sortByScore();
+        query.fields().include(target.fields());
+        query.skip(skip).limit(limit);
+        return mongoTemplate.find(query, Document.class, target.collection()).stream()
+                .map(document -> {
+                    SearchHitDTO hit = target.toHit().apply(document);
+                    hit.setScore(document.get("score", Number.class).doubleValue());
+                    return hit;
+                })
+                .toList();
+    }
+
+    // Scales scores into (0, 1] relative to the first hit, which is the best since results are score-sorted
+    private List<SearchHitDTO> normalize(List<SearchHitDTO> hits) {
+        if (hits.isEmpty() || hits.get(0).getScore() <= 0) {
+            return hits;
+        }
+        double top = hits.get(0).getScore();
+        hits.forEach(hit -> hit.setScore(hit.getScore() / top));
+        return hits;
+    }
+
+    private List<SearchHitDTO> prefixSearch(String type, String regex, int limit) {
+        Target target = targets.get(type);
+        Query query = new Query(Criteria.where("nameLower").regex(regex))
+                .with(Sort.by(Sort.Direction.ASC, "nameLower"))
+                .limit(limit);
+        query.fields().include(target.fields());
+        return mongoTemplate.find(query, Document.class, target.collection()).stream()
+                .map(document -> target.toHit().apply(document))
+                .toList();
+    }
+
+    private SearchHitDTO hit(String type, Document document, String title, String text, String photo,
+                             String userId) {
+        SearchHitDTO hit = new SearchHitDTO();
+        hit.setType(type);
+        hit.setId(String.valueOf(document.get("_id")));
+        hit.setTitle(title);
+        hit.setSnippet(snippet(text));
+        hit.setPhoto(photo);
+        hit.setUserId(userId);
+        return hit;
+    }
+
+    private String snippet(String text) {
+        if (text == null || text.length() <= snippetLength) {
+            return text;
+        }
+        return text.substring(0, snippetLength) + "...";
+    }
+}
@@ -0,0 +1,241 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.Follow;
+import com.foodlearning.entity.Post;
+import com.foodlearning.entity.Timeline;
+import com.foodlearning.entity.User;
+import com.foodlearning.repo.FollowRepository;
+import com.foodlearning.repo.PostRepository;
+import com.foodlearning.util.CursorCodec;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Fan-out-on-write home timelines. New posts are pushed into each follower's capped bucket;
+// authors above the celebrity threshold are skipped and merged in at read time instead.
+@Service
+public class TimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+
+    private static final Comparator<Post> NEWEST_FIRST = Comparator
+            .comparing(Post::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Post::getId, Comparator.reverseOrder());
+
+    private final MongoTemplate mongoTemplate;
+    private final PostRepository postRepository;
+    private final FollowRepository followRepository;
+    private final int maxEntries;
+    private final int celebrityThreshold;
+    private final int fanOutBatchSize;
+    private final ThreadPoolExecutor fanOutExecutor;
+
+    @Autowired
+    public TimelineService(MongoTemplate mongoTemplate, PostRepository postRepository,
+                           FollowRepository followRepository,
+                           @Value("${timeline.max-entries:800}") int maxEntries,
+                           @Value("${timeline.celebrity-threshold:10000}") int celebrityThreshold,
+                           @Value("${timeline.fanout-batch-size:500}") int fanOutBatchSize,
+                           @Value("${timeline.fanout-threads:2}") int fanOutThreads,
+                           @Value("${timeline.fanout-queue-capacity:1000}") int fanOutQueueCapacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.postRepository = postRepository;
+        this.followRepository = followRepository;
+        this.maxEntries = maxEntries;
+        this.celebrityThreshold = celebrityThreshold;
+        this.fanOutBatchSize = fanOutBatchSize;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        // When the queue is full the posting thread does the fan-out itself
+        this.fanOutExecutor = new ThreadPoolExecutor(fanOutThreads, fanOutThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fanOutQueueCapacity),
+                task -> new Thread(task, "timeline-fanout-" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public void fanOut(Post post) {
+        fanOutExecutor.execute(() -> {
+            try {
+                pushToTimelines(post);
+            } catch (RuntimeException e) {
+                logger.error("Timeline fan-out failed for post {}", post.getId(), e);
+            }
+        });
+    }
+
+    private void pushToTimelines(Post post) {
+        Timeline.Entry entry = toEntry(post);
+        pushToBuckets(List.of(post.getUserId()), List.of(entry)); // authors see their own posts
+
+        Query authorQuery = new Query(Criteria.where("_id").is(post.getUserId()));
+        authorQuery.fields().include("followerCount");
+        User author = mongoTemplate.findOne(authorQuery, User.class);
+        if (author == null || author.getFollowerCount() > celebrityThreshold) {
+            return;
+        }
+
+        List<String> batch = new ArrayList<>(fanOutBatchSize);
+        try (Stream<Follow> followers = followRepository.streamFollowerIds(post.getUserId())) {
+            for (Follow follow : (Iterable<Follow>) followers::iterator) {
+                batch.add(follow.getFollowerId());
+                if (batch.size() == fanOutBatchSize) {
+                    pushToBuckets(batch, List.of(entry));
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            pushToBuckets(batch, List.of(entry));
+        }
+    }
+
+    private void pushToBuckets(List<String> userIds, List<Timeline.Entry> entries) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Timeline.class);
+        for (String userId : userIds) {
+            Update update = new Update();
+            update.push("entries")
+                    .sort(Sort.by(Sort.Direction.DESC, "createdAt", "postId"))
+                    .slice(maxEntries)
+                    .each(entries.toArray());
+            bulk.upsert(new Query(Criteria.where("_id").is(userId)), update);
+        }
+        bulk.execute();
+    }
+
+    private Timeline.Entry toEntry(Post post) {
+        Timeline.Entry entry = new Timeline.Entry();
+        entry.setPostId(post.getId());
+        entry.setAuthorId(post.getUserId());
+        entry.setCreatedAt(post.getCreatedAt());
+        return entry;
+    }
+
+    // Seeds a new follower's bucket with the followee's recent posts. Celebrities are skipped,
+    // their posts are merged in at read time anyway.
+    public void backfill(String followerId, String followeeId, long followeeFollowerCount) {
+        if (followeeFollowerCount > celebrityThreshold) {
+            return;
+        }
+        fanOutExecutor.execute(() -> {
+            try {
+                Query recent = new Query(Criteria.where("userId").is(followeeId))
+                        .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                        .limit(maxEntries);
+                recent.fields().include("userId", "createdAt");
+                List<Timeline.Entry> entries = mongoTemplate.find(recent, Post.class).stream()
+                        .map(this::toEntry)
+                        .toList();
+                if (!entries.isEmpty()) {
+                    // Drop anything already fanned out so a re-follow doesn't duplicate entries
+                    removeAuthor(followerId, followeeId);
+                    pushToBuckets(List.of(followerId), entries);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Timeline backfill failed for {} -> {}", followerId, followeeId, e);
+            }
+        });
+    }
+
+    public void removeAuthor(String userId, String authorId) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId)),
+                new Update().pull("entries", new Document("authorId", authorId)), Timeline.class);
+    }
+
+    public void removePost(String postId) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("entries.postId").is(postId)),
+                new Update().pull("entries", new Document("postId", postId)), Timeline.class);
+    }
+
+    // Up to `fetch` posts older than the cursor: the user's bucket merged with recent posts
+    // of followed high-fan-out authors
+    public List<Post> readTimeline(String userId, CursorCodec.Cursor position, int fetch) {
+        List<String> bucketIds = bucketPostIds(userId, position, fetch);
+        Map<String, Post> bucketPosts = postRepository.findAllById(bucketIds).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+
+        // Keyed by id: a post can be in the bucket and also come back from the celebrity query,
+        // e.g. when its author crossed the threshold after it was fanned out
+        Map<String, Post> merged = new LinkedHashMap<>();
+        bucketIds.stream().map(bucketPosts::get).filter(Objects::nonNull)
+                .forEach(post -> merged.putIfAbsent(post.getId(), post));
+
+        List<String> celebrities = followedCelebrities(userId);
+        if (!celebrities.isEmpty()) {
+            Criteria criteria = Criteria.where("userId").in(celebrities);
+            if (position != null) {
+                criteria.orOperator(
+                        Criteria.where("createdAt").lt(position.createdAt()),
+                        Criteria.where("createdAt").is(position.createdAt()).and("_id").lt(position.id()));
+            }
+            Query query = new Query(criteria)
+                    .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                    .limit(fetch);
+            mongoTemplate.find(query, Post.class).forEach(post -> merged.putIfAbsent(post.getId(), post));
+        }
+
+        return merged.values().stream()
+                .sorted(NEWEST_FIRST)
+                .limit(fetch)
+                .toList();
+    }
+
+    private List<String> bucketPostIds(String userId, CursorCodec.Cursor position, int fetch) {
+        Timeline timeline = mongoTemplate.findById(userId, Timeline.class);
+        if (timeline == null) {
+            return List.of();
+        }
+        Stream<Timeline.Entry> entries = timeline.getEntries().stream();
+        if (position != null) {
+            String cursorId = position.id().toHexString();
+            entries = entries.filter(entry -> entry.getCreatedAt().isBefore(position.createdAt())
+                    || (entry.getCreatedAt().isEqual(position.createdAt())
+                    && entry.getPostId().compareTo(cursorId) < 0));
+        }
+        return entries.limit(fetch).map(Timeline.Entry::getPostId).toList();
+    }
+
+    // Followed authors whose posts are not fanned out
+    private List<String> followedCelebrities(String userId) {
+        List<String> followeeIds = followRepository.findFolloweeIds(userId).stream()
+                .map(Follow::getFolloweeId)
+                .toList();
+        if (followeeIds.isEmpty()) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where("_id").in(followeeIds).and("followerCount").gt(celebrityThreshold));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, User.class).stream()
+                .map(User::getId)
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        fanOutExecutor.shutdown();
+        fanOutExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
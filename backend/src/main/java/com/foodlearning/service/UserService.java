@@ -3,12 +3,18 @@ package com.foodlearning.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.foodlearning.entity.User;
 import com.foodlearning.repo.UserRepository;
+import com.foodlearning.security.AuthenticatedUserResolver;
 
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -17,10 +23,25 @@ public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+    private final UserSummaryService userSummaryService;
+    private final FollowService followService;
+    private final MongoTemplate mongoTemplate;
+    private final AuthorProfilePropagator authorProfilePropagator;
+    private final PasswordEncoder passwordEncoder;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, AuthenticatedUserResolver authenticatedUserResolver,
+                       UserSummaryService userSummaryService, FollowService followService,
+                       MongoTemplate mongoTemplate, AuthorProfilePropagator authorProfilePropagator,
+                       PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        this.userSummaryService = userSummaryService;
+        this.followService = followService;
+        this.mongoTemplate = mongoTemplate;
+        this.authorProfilePropagator = authorProfilePropagator;
+        this.passwordEncoder = passwordEncoder;
     }
 
     // CREATE
@@ -28,11 +49,6 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    // READ ALL
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
-    }
-
     // READ BY ID
     public Optional<User> getUserById(String id) {
         return userRepository.findById(id);
@@ -44,34 +60,63 @@ public class UserService {
     }
 
     // UPDATE
+    // Fields are $set individually so the follow counters, which FollowService bumps
+    // concurrently with $inc, are never overwritten by a stale copy of the document
     public User updateUser(String id, User updatedUser) {
-        return userRepository.findById(id)
-                .map(user -> {
-                    user.setEmail(updatedUser.getEmail());
-                    user.setName(updatedUser.getName());
-                    user.setPassword(updatedUser.getPassword());
-                    user.setFollowers(updatedUser.getFollowers());
-                    user.setFollowing(updatedUser.getFollowing());
-                    user.setLearningPlanIds(updatedUser.getLearningPlanIds());
-                    return userRepository.save(user);
-                })
+        User existing = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        Update update = new Update()
+                .set("email", updatedUser.getEmail())
+                .set("name", updatedUser.getName())
+                .set("nameLower", updatedUser.getNameLower())
+                .set("learningPlanIds", updatedUser.getLearningPlanIds());
+        // Leave the stored hash alone unless a new password was supplied
+        if (updatedUser.getPassword() != null && !updatedUser.getPassword().isBlank()) {
+            update.set("password", passwordEncoder.encode(updatedUser.getPassword()));
+        }
+        User saved = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (saved == null) {
+            throw new RuntimeException("User not found");
+        }
+        authenticatedUserResolver.invalidate(existing.getEmail());
+        authenticatedUserResolver.invalidate(saved.getEmail());
+        userSummaryService.evict(saved.getId());
+        authorProfilePropagator.propagateAsync(saved.getId(), saved.getName(), saved.getPhoto());
+        return saved;
     }
 
     // UPDATE PROFILE BY EMAIL
     public Optional<User> updateUserProfileByEmail(String email, User updatedProfile) {
-        return userRepository.findByEmail(email).map(user -> {
-            if (updatedProfile.getName() != null) user.setName(updatedProfile.getName());
-            if (updatedProfile.getBio() != null) user.setBio(updatedProfile.getBio());
-            if (updatedProfile.getPhoto() != null) user.setPhoto(updatedProfile.getPhoto());
-            // Add more fields as needed, but do NOT update email or password here
-            return userRepository.save(user);
-        });
+        authenticatedUserResolver.invalidate(email);
+        Update update = new Update();
+        if (updatedProfile.getName() != null) {
+            update.set("name", updatedProfile.getName()).set("nameLower", updatedProfile.getNameLower());
+        }
+        if (updatedProfile.getBio() != null) update.set("bio", updatedProfile.getBio());
+        if (updatedProfile.getPhoto() != null) update.set("photo", updatedProfile.getPhoto());
+        // Add more fields as needed, but do NOT update email or password here
+        if (update.getUpdateObject().isEmpty()) {
+            return userRepository.findByEmail(email);
+        }
+        User saved = mongoTemplate.findAndModify(new Query(Criteria.where("email").is(email)), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (saved != null) {
+            userSummaryService.evict(saved.getId());
+            // Posts and comments hold a copy of name and photo
+            if (updatedProfile.getName() != null || updatedProfile.getPhoto() != null) {
+                authorProfilePropagator.propagateAsync(saved.getId(), saved.getName(), saved.getPhoto());
+            }
+        }
+        return Optional.ofNullable(saved);
     }
 
     // DELETE
     public void deleteUser(String id) {
         userRepository.deleteById(id);
+        followService.removeUser(id);
+        authenticatedUserResolver.invalidateUserId(id);
+        userSummaryService.evict(id);
     }
 
     // DELETE BY EMAIL
@@ -81,6 +126,9 @@ public class UserService {
                 .map(user -> {
                     logger.info("User found: {} (id: {})", user.getEmail(), user.getId());
                     userRepository.deleteById(user.getId());
+                    followService.removeUser(user.getId());
+                    authenticatedUserResolver.invalidate(email);
+                    userSummaryService.evict(user.getId());
                     logger.info("User deleted: {}", user.getId());
                     return true;
                 })
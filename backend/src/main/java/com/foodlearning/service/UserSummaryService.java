@@ -0,0 +1,112 @@
+package com.foodlearning.service;
+
+import com.foodlearning.dto.PageDTO;
+import com.foodlearning.dto.UserSummaryDTO;
+import com.foodlearning.entity.User;
+import com.foodlearning.util.CursorCodec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Shared cache of the compact user view (name, photo, counters) that DTO conversion attaches
+// to rows and list endpoints return instead of full User documents
+@Service
+public class UserSummaryService {
+
+    private static final String[] SUMMARY_FIELDS = {"name", "photo", "followerCount", "followingCount"};
+
+    private final MongoTemplate mongoTemplate;
+    private final Cache<String, UserSummaryDTO> summaries;
+
+    @Autowired
+    public UserSummaryService(MongoTemplate mongoTemplate,
+                              @Value("${users.summary-cache.max-size:50000}") long maxSize,
+                              @Value("${users.summary-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    // Returns summaries for the given ids; all cache misses are fetched with a single $in query
+    public Map<String, UserSummaryDTO> getSummaries(Collection<String> userIds) {
+        Set<String> distinctIds = userIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+        return summaries.getAll(distinctIds, this::loadSummaries);
+    }
+
+    public Optional<UserSummaryDTO> getSummary(String userId) {
+        return Optional.ofNullable(getSummaries(Set.of(userId)).get(userId));
+    }
+
+    // Same order as the requested ids; unknown ids are skipped
+    public List<UserSummaryDTO> getSummariesInOrder(List<String> userIds) {
+        Map<String, UserSummaryDTO> found = getSummaries(userIds);
+        return userIds.stream()
+                .distinct()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // User directory in _id order, read with the summary projection only
+    public PageDTO<UserSummaryDTO> getDirectoryPage(String cursor, int limit) {
+        int pageSize = CursorCodec.clampPageSize(limit);
+        Criteria criteria = CursorCodec.isPresent(cursor)
+                ? Criteria.where("_id").gt(CursorCodec.decodeId(cursor))
+                : new Criteria();
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(pageSize + 1);
+        query.fields().include(SUMMARY_FIELDS);
+        List<UserSummaryDTO> rows = mongoTemplate.find(query, User.class).stream()
+                .map(this::toSummary)
+                .toList();
+        rows.forEach(summary -> summaries.put(summary.getId(), summary));
+
+        return PageDTO.of(rows, pageSize, summary -> CursorCodec.encodeId(summary.getId()), page -> page);
+    }
+
+    public void evict(String userId) {
+        if (userId != null) {
+            summaries.invalidate(userId);
+        }
+    }
+
+    private Map<String, UserSummaryDTO> loadSummaries(Set<? extends String> userIds) {
+        Query query = new Query(Criteria.where("_id").in(userIds));
+        query.fields().include(SUMMARY_FIELDS);
+        return mongoTemplate.find(query, User.class).stream()
+                .collect(Collectors.toMap(User::getId, this::toSummary));
+    }
+
+    private UserSummaryDTO toSummary(User user) {
+        UserSummaryDTO dto = new UserSummaryDTO();
+        dto.setId(user.getId());
+        dto.setName(user.getName());
+        dto.setPhoto(user.getPhoto());
+        dto.setFollowerCount(user.getFollowerCount());
+        dto.setFollowingCount(user.getFollowingCount());
+        return dto;
+    }
+}
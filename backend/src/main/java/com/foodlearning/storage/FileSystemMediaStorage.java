@@ -0,0 +1,85 @@
+package com.foodlearning.storage;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+// Blobs as plain files under media.storage.filesystem.root, fanned out into 256 directories.
+// Being local files, they can be served with sendfile instead of through the heap.
+@Component
+@ConditionalOnProperty(name = "media.storage.filesystem.root")
+public class FileSystemMediaStorage implements MediaStorage {
+
+    public static final String NAME = "filesystem";
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemMediaStorage.class);
+
+    private final Path root;
+
+    @Autowired
+    public FileSystemMediaStorage(@Value("${media.storage.filesystem.root}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    // Written to a temp file first and moved into place, so readers never see a partial file
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) throws IOException {
+        Path target = path(key);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), key, ".part");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Resource load(String key, long length) {
+        Path path = path(key);
+        return Files.isRegularFile(path) ? new FileSystemResource(path) : null;
+    }
+
+    @Override
+    public Path localPath(String key) {
+        Path path = path(key);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(path(key));
+        } catch (IOException e) {
+            logger.warn("Could not delete media file {}", key, e);
+        }
+    }
+
+    // Keys are catalog ObjectIds, which also rules out path traversal. The low byte of the
+    // counter is used for the directory since the leading bytes are a timestamp.
+    private Path path(String key) {
+        if (!ObjectId.isValid(key)) {
+            throw new IllegalArgumentException("Invalid media key: " + key);
+        }
+        return root.resolve(key.substring(key.length() - 2)).resolve(key);
+    }
+}
@@ -0,0 +1,64 @@
+package com.foodlearning.storage;
+
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+
+// Blobs in the default fs bucket of the application database; files uploaded before the
+// storage SPI already live here under the same ids
+@Component
+public class GridFsMediaStorage implements MediaStorage {
+
+    public static final String NAME = "gridfs";
+
+    private final GridFSBucket bucket;
+
+    @Autowired
+    public GridFsMediaStorage(MongoDatabaseFactory databaseFactory) {
+        this.bucket = GridFSBuckets.create(databaseFactory.getMongoDatabase());
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) {
+        // catalogued marks blobs that already have a media_files entry
+        Document metadata = new Document("_contentType", contentType).append("catalogued", true);
+        bucket.uploadFromStream(new BsonObjectId(new ObjectId(key)), key, content,
+                new GridFSUploadOptions().metadata(metadata));
+    }
+
+    @Override
+    public Resource load(String key, long length) {
+        GridFSFile file = bucket.find(Filters.eq("_id", new ObjectId(key))).first();
+        if (file == null) {
+            return null;
+        }
+        return new GridFsResource(file, bucket.openDownloadStream(file.getId()));
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            bucket.delete(new ObjectId(key));
+        } catch (MongoGridFSException e) {
+            // already gone
+        }
+    }
+}
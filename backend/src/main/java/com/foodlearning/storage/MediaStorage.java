@@ -0,0 +1,34 @@
+package com.foodlearning.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+// Where media bytes live. Hashes, reference counts and variant links are kept in the
+// media_files catalog, so a backend only stores opaque blobs under the catalog id.
+public interface MediaStorage {
+
+    // Value of media.storage.backend and MediaFile.backend that selects this implementation
+    String name();
+
+    void put(String key, InputStream content, long length, String contentType) throws IOException;
+
+    // Null if nothing is stored under the key
+    Resource load(String key, long length) throws IOException;
+
+    // Bytes start..end (inclusive) of the blob, or null if nothing is stored under the key. The
+    // default skips through the stream from load; remote backends fetch only the range.
+    default Resource loadRange(String key, long length, long start, long end) throws IOException {
+        Resource resource = load(key, length);
+        return resource != null ? RangedResource.slice(resource.getInputStream(), start, end) : null;
+    }
+
+    // Local file holding the bytes, for zero-copy serving; null for remote backends
+    default Path localPath(String key) {
+        return null;
+    }
+
+    void delete(String key);
+}
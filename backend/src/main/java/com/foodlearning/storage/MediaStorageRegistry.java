@@ -0,0 +1,51 @@
+package com.foodlearning.storage;
+
+import com.foodlearning.entity.MediaFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// The configured MediaStorage backends. New uploads go to the one named by
+// media.storage.backend; existing files are read from whichever backend their catalog entry names.
+@Service
+public class MediaStorageRegistry {
+
+    private final Map<String, MediaStorage> backends;
+    private final MediaStorage primary;
+
+    @Autowired
+    public MediaStorageRegistry(List<MediaStorage> storages,
+                                @Value("${media.storage.backend:gridfs}") String backend) {
+        this.backends = storages.stream().collect(Collectors.toMap(MediaStorage::name, Function.identity()));
+        this.primary = backends.get(backend);
+        if (primary == null) {
+            throw new IllegalStateException("media.storage.backend=" + backend
+                    + " is not configured; available backends: " + backends.keySet());
+        }
+    }
+
+    public MediaStorage primary() {
+        return primary;
+    }
+
+    public MediaStorage get(String name) {
+        MediaStorage storage = backends.get(name);
+        if (storage == null) {
+            throw new IllegalStateException("Media backend " + name + " is not configured");
+        }
+        return storage;
+    }
+
+    public boolean isConfigured(String name) {
+        return backends.containsKey(name);
+    }
+
+    public MediaStorage of(MediaFile file) {
+        return get(file.getBackend());
+    }
+}
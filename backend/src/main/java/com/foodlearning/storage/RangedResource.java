@@ -0,0 +1,34 @@
+package com.foodlearning.storage;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.core.io.InputStreamResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// One byte range of a stored blob, written as the body of a 206 response
+final class RangedResource extends InputStreamResource {
+
+    private final long length;
+
+    RangedResource(InputStream content, long length) {
+        super(content);
+        this.length = length;
+    }
+
+    // Skips to start and stops after end (inclusive), for backends that can only stream the whole blob
+    static RangedResource slice(InputStream content, long start, long end) throws IOException {
+        try {
+            content.skipNBytes(start);
+        } catch (IOException e) {
+            content.close();
+            throw e;
+        }
+        return new RangedResource(new BoundedInputStream(content, end - start + 1), end - start + 1);
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+}
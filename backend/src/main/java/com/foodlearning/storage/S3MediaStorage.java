@@ -0,0 +1,109 @@
+package com.foodlearning.storage;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+
+// Blobs in an S3 bucket. Setting an endpoint and path-style access points it at an
+// S3-compatible server such as MinIO.
+@Component
+@ConditionalOnProperty(name = "media.storage.s3.bucket")
+public class S3MediaStorage implements MediaStorage {
+
+    public static final String NAME = "s3";
+
+    private final AmazonS3 s3;
+    private final String bucket;
+
+    @Autowired
+    public S3MediaStorage(@Value("${media.storage.s3.bucket}") String bucket,
+                          @Value("${media.storage.s3.endpoint:}") String endpoint,
+                          @Value("${media.storage.s3.region:us-east-1}") String region,
+                          @Value("${media.storage.s3.access-key:}") String accessKey,
+                          @Value("${media.storage.s3.secret-key:}") String secretKey,
+                          @Value("${media.storage.s3.path-style:true}") boolean pathStyle) {
+        this.bucket = bucket;
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard().withPathStyleAccessEnabled(pathStyle);
+        if (endpoint.isBlank()) {
+            builder.withRegion(region);
+        } else {
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, region));
+        }
+        if (!accessKey.isBlank()) {
+            // Otherwise the SDK's default chain (env, profile, instance role) is used
+            builder.withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials(accessKey, secretKey)));
+        }
+        this.s3 = builder.build();
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) {
+        // A known length lets the SDK stream the body instead of buffering it to compute one
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(length);
+        metadata.setContentType(contentType);
+        s3.putObject(bucket, key, content, metadata);
+    }
+
+    @Override
+    public Resource load(String key, long length) {
+        S3Object object = getObject(new GetObjectRequest(bucket, key));
+        if (object == null) {
+            return null;
+        }
+        return new InputStreamResource(object.getObjectContent()) {
+            @Override
+            public long contentLength() {
+                return length;
+            }
+        };
+    }
+
+    // A ranged GET, so S3 sends only the requested bytes instead of everything up to them
+    @Override
+    public Resource loadRange(String key, long length, long start, long end) {
+        S3Object object = getObject(new GetObjectRequest(bucket, key).withRange(start, end));
+        return object != null ? new RangedResource(object.getObjectContent(), end - start + 1) : null;
+    }
+
+    private S3Object getObject(GetObjectRequest request) {
+        try {
+            return s3.getObject(request);
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        s3.deleteObject(bucket, key);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        s3.shutdown();
+    }
+}
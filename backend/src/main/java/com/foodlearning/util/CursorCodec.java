@@ -0,0 +1,87 @@
+package com.foodlearning.util;
+
+import com.foodlearning.exception.InvalidCursorException;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Encodes (createdAt, _id) keyset positions as opaque page tokens; collections without a
+// createdAt (users) page on _id alone, and relevance-ranked search results on an offset
+public final class CursorCodec {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 50;
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(LocalDateTime createdAt, String id) {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR);
+            if (split < 0) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            String id = raw.substring(split + 1);
+            if (!ObjectId.isValid(id)) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, split)), new ObjectId(id));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    public static String encodeId(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ObjectId decodeId(String token) {
+        try {
+            String id = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!ObjectId.isValid(id)) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            return new ObjectId(id);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    public static String encodeOffset(int offset) {
+        return encodeId(Integer.toString(offset));
+    }
+
+    public static int decodeOffset(String token) {
+        try {
+            int offset = Integer.parseInt(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+            if (offset < 0) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            return offset;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    public static boolean isPresent(String token) {
+        return token != null && !token.isBlank();
+    }
+
+    public static int clampPageSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_PAGE_SIZE));
+    }
+
+    public record Cursor(LocalDateTime createdAt, ObjectId id) {
+    }
+}
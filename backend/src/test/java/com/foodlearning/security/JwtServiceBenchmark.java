@@ -0,0 +1,82 @@
+package com.foodlearning.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Token validation throughput, before and after JwtService kept its key, parser and verified
+// tokens. JMH forks a JVM with the launcher's java.class.path, so it needs a plain java process
+// (exec:exec) rather than exec:java, whose class path is Maven's own:
+//   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+//       -Dexec.args="-classpath %classpath org.openjdk.jmh.Main JwtServiceBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+    private static final String SUBJECT = "someone@example.com";
+
+    private JwtService cachedService;
+    private JwtService uncachedService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachedService = new JwtService(SECRET, 10_000, 300);
+        // Shared key and parser, but every call verifies the signature again
+        uncachedService = new JwtService(SECRET, 0, 300);
+        token = cachedService.generateToken(SUBJECT);
+    }
+
+    // What validateToken used to do: derive the key and build a parser per call, and parse
+    // the token twice (subject, then expiration)
+    @Benchmark
+    public boolean before() {
+        String subject = legacyClaims(token).getSubject();
+        Date expiration = legacyClaims(token).getExpiration();
+        return subject.equals(SUBJECT) && !expiration.before(new Date());
+    }
+
+    @Benchmark
+    public boolean afterWithoutVerifiedCache() {
+        return uncachedService.validateToken(token, SUBJECT);
+    }
+
+    @Benchmark
+    public boolean after() {
+        return cachedService.validateToken(token, SUBJECT);
+    }
+
+    private static Claims legacyClaims(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
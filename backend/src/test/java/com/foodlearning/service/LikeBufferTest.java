@@ -0,0 +1,189 @@
+package com.foodlearning.service;
+
+import com.foodlearning.entity.Post;
+import com.foodlearning.entity.PostLike;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeBufferTest {
+
+    @TempDir
+    Path journalDir;
+
+    private MongoTemplate mongoTemplate;
+    private PostCache postCache;
+    private BulkOperations likeOps;
+    private BulkOperations counterOps;
+    private LikeBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        postCache = mock(PostCache.class);
+        likeOps = mock(BulkOperations.class, Answers.RETURNS_SELF);
+        counterOps = mock(BulkOperations.class, Answers.RETURNS_SELF);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PostLike.class)).thenReturn(likeOps);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class)).thenReturn(counterOps);
+        when(mongoTemplate.remove(any(Query.class), eq(PostLike.class))).thenReturn(DeleteResult.acknowledged(1));
+        when(mongoTemplate.find(any(Query.class), eq(Post.class))).thenReturn(List.of(post("p1")));
+        stubLikeCount(0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (buffer != null) {
+            buffer.shutdown();
+        }
+    }
+
+    @Test
+    void flushWritesTheLatestStatePerUserAndSetsTheRecountedTotal() throws IOException {
+        buffer = newBuffer();
+        assertTrue(buffer.like("p1", "u1", () -> false));
+        assertTrue(buffer.like("p1", "u2", () -> false));
+        assertTrue(buffer.unlike("p1", "u2", () -> false));
+        assertEquals(1, buffer.pendingDelta("p1"));
+
+        stubLikeCount(7);
+        buffer.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PostLike>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(likeOps).insert(inserted.capture());
+        assertEquals(1, inserted.getValue().size());
+        assertEquals("u1", inserted.getValue().get(0).getUserId());
+        verify(mongoTemplate).remove(any(Query.class), eq(PostLike.class));
+        assertEquals(7, likesCountSet());
+
+        assertEquals(0, buffer.pendingDelta("p1"));
+        assertNull(buffer.bufferedState("p1", "u1"));
+        verify(postCache).invalidate("p1");
+    }
+
+    // The case a $inc got wrong: post_likes was written but the counter update was lost
+    @Test
+    void failedCounterUpdateIsRequeuedAndTheRetryRecounts() throws IOException {
+        when(counterOps.execute())
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(null);
+        buffer = newBuffer();
+        buffer.like("p1", "u1", () -> false);
+
+        assertThrows(DataAccessResourceFailureException.class, buffer::flush);
+        assertEquals(1, buffer.pendingDelta("p1"));
+        assertTrue(buffer.bufferedState("p1", "u1"));
+        verify(postCache, never()).invalidate("p1");
+
+        stubLikeCount(1);
+        buffer.flush();
+
+        verify(likeOps, times(2)).insert(anyList());
+        assertEquals(1, likesCountSet());
+        assertEquals(0, buffer.pendingDelta("p1"));
+        assertNull(buffer.bufferedState("p1", "u1"));
+    }
+
+    @Test
+    void eventsRecordedAfterAFailedFlushOverrideTheRequeuedOnes() throws IOException {
+        when(likeOps.execute())
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(null);
+        buffer = newBuffer();
+        buffer.like("p1", "u1", () -> false);
+        assertThrows(DataAccessResourceFailureException.class, buffer::flush);
+
+        assertTrue(buffer.unlike("p1", "u1", () -> false));
+        assertEquals(0, buffer.pendingDelta("p1"));
+        buffer.flush();
+
+        verify(likeOps, times(1)).insert(anyList());
+        verify(mongoTemplate).remove(any(Query.class), eq(PostLike.class));
+        assertEquals(0, likesCountSet());
+        assertNull(buffer.bufferedState("p1", "u1"));
+    }
+
+    @Test
+    void replaysTheJournalOnStartupAndSkipsATornLine() throws IOException {
+        try (LikeJournal journal = new LikeJournal(journalDir, false)) {
+            journal.append(true, "p1", "u1");
+            journal.append(true, "p1", "u2");
+            journal.append(false, "p1", "u2");
+        }
+        Files.writeString(journalDir.resolve("likes-1.log"), "L p1 u", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+        stubLikeCount(1);
+
+        buffer = newBuffer();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PostLike>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(likeOps).insert(inserted.capture());
+        assertEquals(List.of("u1"), inserted.getValue().stream().map(PostLike::getUserId).toList());
+        assertEquals(1, likesCountSet());
+        assertEquals(0, buffer.pendingDelta("p1"));
+        try (Stream<Path> segments = Files.list(journalDir)) {
+            assertEquals(1, segments.count()); // only the freshly opened segment is left
+        }
+    }
+
+    private LikeBuffer newBuffer() throws IOException {
+        // Flushes only when the test calls flush()
+        return new LikeBuffer(mongoTemplate, postCache, true, 3_600_000, 1_000, 4, journalDir.toString(), false);
+    }
+
+    private void stubLikeCount(int count) {
+        List<Document> counts = count > 0 ? List.of(new Document("_id", "p1").append("count", count)) : List.of();
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(PostLike.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(counts, new Document()));
+    }
+
+    // likesCount written by the last counter update; the counter is only ever $set
+    private int likesCountSet() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(counterOps, atLeastOnce()).updateOne(any(Query.class), update.capture());
+        Document applied = update.getValue().getUpdateObject();
+        assertNull(applied.get("$inc"));
+        return applied.get("$set", Document.class).getInteger("likesCount");
+    }
+
+    private static Post post(String id) {
+        Post post = new Post();
+        post.setId(id);
+        return post;
+    }
+}
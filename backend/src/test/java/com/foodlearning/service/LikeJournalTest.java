@@ -0,0 +1,102 @@
+package com.foodlearning.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LikeJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysSealedSegmentsInAppendOrder() throws IOException {
+        try (LikeJournal journal = new LikeJournal(directory, false)) {
+            journal.append(true, "p1", "u1");
+            journal.append(false, "p1", "u1");
+            journal.rotate();
+            journal.append(true, "p2", "u2");
+            long sealed = journal.rotate();
+
+            assertEquals(List.of("L p1 u1", "U p1 u1", "L p2 u2"), replay(journal, sealed));
+        }
+    }
+
+    @Test
+    void eventsAppendedAfterRotateStayOutOfTheSealedSegment() throws IOException {
+        try (LikeJournal journal = new LikeJournal(directory, false)) {
+            journal.append(true, "p1", "u1");
+            long sealed = journal.rotate();
+            journal.append(true, "p1", "u2");
+
+            assertEquals(List.of("L p1 u1"), replay(journal, sealed));
+
+            journal.deleteThrough(sealed);
+            assertEquals(List.of(), replay(journal, sealed));
+            assertEquals(List.of("L p1 u2"), replay(journal, journal.rotate()));
+        }
+    }
+
+    @Test
+    void skipsATornLastLine() throws IOException {
+        long sealed;
+        try (LikeJournal journal = new LikeJournal(directory, false)) {
+            journal.append(true, "p1", "u1");
+            sealed = journal.rotate();
+        }
+        Files.writeString(directory.resolve("likes-" + sealed + ".log"), "L p1",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (LikeJournal journal = new LikeJournal(directory, false)) {
+            assertEquals(List.of("L p1 u1"), replay(journal, sealed));
+        }
+    }
+
+    @Test
+    void skipsALastLineCutInsideTheUserId() throws IOException {
+        long sealed;
+        try (LikeJournal journal = new LikeJournal(directory, false)) {
+            journal.append(true, "p1", "u1");
+            sealed = journal.rotate();
+        }
+        Files.writeString(directory.resolve("likes-" + sealed + ".log"), "L p1 u",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (LikeJournal journal = new LikeJournal(directory, false)) {
+            assertEquals(List.of("L p1 u1"), replay(journal, sealed));
+        }
+    }
+
+    @Test
+    void reopeningContinuesAfterTheLastSegment() throws IOException {
+        long sealed;
+        try (LikeJournal journal = new LikeJournal(directory, false)) {
+            journal.append(true, "p1", "u1");
+            sealed = journal.rotate();
+        }
+        try (LikeJournal journal = new LikeJournal(directory, false)) {
+            journal.append(false, "p1", "u1");
+            long resealed = journal.rotate();
+
+            assertEquals(List.of("L p1 u1", "U p1 u1"), replay(journal, resealed));
+            journal.deleteThrough(sealed);
+            assertEquals(List.of("U p1 u1"), replay(journal, resealed));
+        }
+    }
+
+    private List<String> replay(LikeJournal journal, long sealed) throws IOException {
+        List<String> events = new ArrayList<>();
+        journal.replayThrough(sealed, (liked, postId, userId) ->
+                events.add((liked ? "L " : "U ") + postId + " " + userId));
+        return events;
+    }
+}
@@ -13,7 +13,7 @@ import AIChatbotSection from "./components/AIChatbotSection/AIChatbotSection";
 import LoginPage from "./components/Auth/LoginPage";
 import SignupPage from "./components/Auth/SignupPage";
 import PostCard from "./components/HomeSection/PostCard";
-import { getPosts, getFollowingPosts } from "./api";
+import { getFeed, getFollowingPosts } from "./api";
 
 function App() {
   const [currentSection, setCurrentSection] = useState("home");
@@ -22,6 +22,8 @@ function App() {
   const [user, setUser] = useState(null);
   const [posts, setPosts] = useState([]);
   const [isLoadingPosts, setIsLoadingPosts] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [isLoadingMore, setIsLoadingMore] = useState(false);
   const navigate = useNavigate();
 
   // Fetch user profile and posts when authenticated
@@ -38,8 +40,7 @@ function App() {
         })
         .then((userData) => {
           setUser(userData);
-          setIsAuthenticated(true);
-          fetchPosts(); // Fetch posts after user is authenticated
+          setIsAuthenticated(true); // the section effect below loads the first page of posts
         })
         .catch(() => {
           setIsAuthenticated(false);
@@ -51,31 +52,6 @@ function App() {
       setUser(null);
     }
 
-    const fetchPosts = async () => {
-      setIsLoadingPosts(true);
-      try {
-        let response;
-        if (currentSection === "home") {
-          response = await getPosts();
-        } else if (currentSection === "explore") {
-          response = await getFollowingPosts();
-        }
-        
-        // Ensure posts have proper media URLs
-        const postsWithMedia = response.data.map(post => ({
-          ...post,
-          imageUrls: post.imageIds?.map(id => `/posts/media/${id}`) || [],
-          videoUrl: post.videoId ? `/posts/media/${post.videoId}` : null
-        }));
-        
-        setPosts(postsWithMedia);
-      } catch (error) {
-        console.error("Error fetching posts:", error);
-      } finally {
-        setIsLoadingPosts(false);
-      }
-    };
-
     // Listen for profile updates from ProfileSection
     const handleProfileUpdated = (e) => {
       setUser(e.detail);
@@ -97,17 +73,18 @@ function App() {
     }
   }, []);
 
-  // Fetch posts based on current section
+  // Fetch the first page of posts for the current section
   const fetchPosts = async () => {
     setIsLoadingPosts(true);
     try {
       let response;
       if (currentSection === "home") {
-        response = await getPosts();
+        response = await getFeed();
       } else if (currentSection === "explore") {
         response = await getFollowingPosts();
       }
       setPosts(response.data);
+      setNextCursor(response.nextCursor);
     } catch (error) {
       console.error("Error fetching posts:", error);
     } finally {
@@ -115,6 +92,42 @@ function App() {
     }
   };
 
+  // Append the next page; called when the content area is scrolled near the bottom
+  const loadMorePosts = async () => {
+    if (!nextCursor || isLoadingPosts || isLoadingMore) return;
+    setIsLoadingMore(true);
+    try {
+      const response = currentSection === "home"
+        ? await getFeed(nextCursor)
+        : await getFollowingPosts(nextCursor);
+      setPosts(prev => [...prev, ...response.data.filter(post => !prev.some(p => p.id === post.id))]);
+      setNextCursor(response.nextCursor);
+    } catch (error) {
+      console.error("Error fetching more posts:", error);
+    } finally {
+      setIsLoadingMore(false);
+    }
+  };
+
+  const handleContentScroll = (e) => {
+    const { scrollTop, clientHeight, scrollHeight } = e.currentTarget;
+    if ((currentSection === "home" || currentSection === "explore") && scrollHeight - scrollTop - clientHeight < 600) {
+      loadMorePosts();
+    }
+  };
+
+  const loadMoreFooter = nextCursor && !isLoadingPosts && (
+    <div className="flex justify-center py-4">
+      {isLoadingMore ? (
+        <div className="animate-spin rounded-full h-6 w-6 border-t-2 border-b-2 border-blue-500"></div>
+      ) : (
+        <button onClick={loadMorePosts} className="text-blue-600 hover:underline">
+          Load more posts
+        </button>
+      )}
+    </div>
+  );
+
   // Update session on login/signup
   const afterAuth = (token) => {
     localStorage.setItem("token", token);
@@ -234,6 +247,7 @@ function App() {
     setUser(null);
     setShowSignup(false);
     setPosts([]);
+    setNextCursor(null);
   };
 
   // Refresh posts when section changes
@@ -265,7 +279,7 @@ function App() {
       </div>
 
       {/* Center: Content area */}
-      <div className="flex-1 p-5 overflow-y-auto h-screen">
+      <div className="flex-1 p-5 overflow-y-auto h-screen" onScroll={handleContentScroll}>
         {/* Render the relevant content based on the currentSection state */}
         {currentSection === "home" && (
           <div className="space-y-4">
@@ -284,6 +298,7 @@ function App() {
                 />
               ))
             )}
+            {loadMoreFooter}
           </div>
         )}
         {currentSection === "learning-plans" && <LearningPlans />}
@@ -308,6 +323,7 @@ function App() {
                 />
               ))
             )}
+            {loadMoreFooter}
           </div>
         )}
       </div>
@@ -45,10 +45,22 @@ export const updatePost = (postId, content) => {
 export const likePost = (postId) => api.post(`/api/posts/${postId}/like`);
 export const unlikePost = (postId) => api.post(`/api/posts/${postId}/unlike`);
 export const deletePost = (postId) => api.delete(`/api/posts/${postId}`);
-export const getFollowingPosts = () => api.get('/api/posts/following');
+// Feed cards come back with author, like state, comment count and preview comments attached
+export const getFeed = (cursor) =>
+  api.get('/api/posts/feed/enriched', { params: { cursor } })
+    .then((response) => ({ ...response, data: response.data.items, nextCursor: response.data.nextCursor }));
+export const getFollowingPosts = (cursor) =>
+  api.get('/api/posts/timeline/enriched', { params: { cursor } })
+    .then((response) => ({ ...response, data: response.data.items, nextCursor: response.data.nextCursor }));
 export const getRecommendedUsers = () => api.get('/api/users/recommendations');
 export const followUser = (userId) => api.post(`/api/users/follow/${userId}`);
 export const unfollowUser = (userId) => api.post(`/api/users/unfollow/${userId}`);
+export const getFollowers = (userId, cursor) =>
+  api.get(`/api/users/${userId}/followers`, { params: { cursor } });
+export const getFollowing = (userId, cursor) =>
+  api.get(`/api/users/${userId}/following`, { params: { cursor } });
+export const search = (q, type, cursor) => api.get('/api/search', { params: { q, type, cursor } });
+export const suggest = (prefix) => api.get('/api/search/suggest', { params: { prefix } });
 
 // Comment API functions
 
@@ -66,11 +78,11 @@ export const createComment = async (postId, content) => {
   }
 };
 
-//Get Comments for a Post
-export const getCommentsByPostId = async (postId) => {
+//Get Comments for a Post (newest first, one page per call)
+export const getCommentsByPostId = async (postId, cursor) => {
   try {
-    const response = await api.get(`/api/comments/post/${postId}`);
-    return response;
+    const response = await api.get(`/api/comments/post/${postId}`, { params: { cursor } });
+    return { ...response, data: response.data.items, nextCursor: response.data.nextCursor };
   } catch (error) {
     console.error('Error fetching comments:', error);
     throw error;
@@ -102,10 +114,10 @@ export const deleteComment = async (commentId) => {
 };
 
 // Notification API functions
-// Notification API functions
-export const getNotifications = async () => {
+// One inbox page, newest first: { items, nextCursor }
+export const getNotifications = async (cursor, unreadOnly = false) => {
   try {
-    const response = await api.get('/api/notifications');
+    const response = await api.get('/api/notifications/page', { params: { cursor, unreadOnly } });
     return response.data;
   } catch (error) {
     if (error.response?.status === 401) {
@@ -116,16 +128,6 @@ export const getNotifications = async () => {
   }
 };
 
-export const getUnreadNotifications = async () => {
-  try {
-    const response = await api.get('/api/notifications/unread');
-    return response.data;
-  } catch (error) {
-    console.error('Error fetching unread notifications:', error);
-    throw error;
-  }
-};
-
 export const getUnreadCount = async () => {
   try {
     const response = await api.get('/api/notifications/unread-count');
@@ -136,6 +138,15 @@ export const getUnreadCount = async () => {
   }
 };
 
+// Server-sent notification events. EventSource can't send headers, so the stream is opened with a
+// short-lived single-use ticket; the JWT itself never goes in a URL
+export const openNotificationStream = async () => {
+  if (!localStorage.getItem('token')) return null;
+  const response = await api.post('/api/notifications/stream-ticket');
+  return new EventSource(
+    `${API_BASE_URL}/api/notifications/stream?ticket=${encodeURIComponent(response.data.ticket)}`);
+};
+
 export const markNotificationAsRead = async (notificationId) => {
   try {
     const response = await api.put(`/api/notifications/${notificationId}/read`);
@@ -146,9 +157,9 @@ export const markNotificationAsRead = async (notificationId) => {
   }
 };
 
-export const markAllNotificationsAsRead = async () => {
+export const markAllNotificationsAsRead = async (upTo) => {
   try {
-    const response = await api.put('/api/notifications/read-all');
+    const response = await api.put('/api/notifications/read-all', null, { params: { upTo } });
     return response.data;
   } catch (error) {
     console.error('Error marking all notifications as read this page:', error);
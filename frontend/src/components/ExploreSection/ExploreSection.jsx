@@ -1,5 +1,5 @@
 import React, { useState, useEffect } from "react";
-import { getRecommendedUsers, followUser, unfollowUser } from '../../api';
+import { getRecommendedUsers, followUser, unfollowUser, getFollowing } from '../../api';
 import Avatar from "@mui/material/Avatar";
 import Button from "@mui/material/Button";
 
@@ -7,6 +7,7 @@ const ExploreSection = ({ user }) => {
   const [tab, setTab] = useState("recommendations");
   const [recommendedUsers, setRecommendedUsers] = useState([]);
   const [following, setFollowing] = useState([]);
+  const [followingCursor, setFollowingCursor] = useState(null);
   const [isLoading, setIsLoading] = useState(true);
 
   useEffect(() => {
@@ -16,9 +17,9 @@ const ExploreSection = ({ user }) => {
         const recommendations = await getRecommendedUsers();
         setRecommendedUsers(recommendations.data);
         
-        // For demo purposes, we'll use a mock following list
-        // In a real app, you would fetch this from your API
-        setFollowing(user?.following || []);
+        const followingPage = await getFollowing(user.id);
+        setFollowing(followingPage.data.items);
+        setFollowingCursor(followingPage.data.nextCursor);
       } catch (error) {
         console.error("Error fetching data:", error);
       } finally {
@@ -31,10 +32,23 @@ const ExploreSection = ({ user }) => {
     }
   }, [user]);
 
+  const loadMoreFollowing = async () => {
+    try {
+      const followingPage = await getFollowing(user.id, followingCursor);
+      setFollowing(prev => [...prev, ...followingPage.data.items]);
+      setFollowingCursor(followingPage.data.nextCursor);
+    } catch (error) {
+      console.error("Error fetching following:", error);
+    }
+  };
+
   const handleFollow = async (userId) => {
     try {
       await followUser(userId);
-      setFollowing([...following, userId]);
+      const followed = recommendedUsers.find(u => u.id === userId);
+      if (followed && !following.some(u => u.id === userId)) {
+        setFollowing([followed, ...following]);
+      }
       setRecommendedUsers(recommendedUsers.filter(u => u.id !== userId));
     } catch (error) {
       console.error("Error following user:", error);
@@ -44,7 +58,7 @@ const ExploreSection = ({ user }) => {
   const handleUnfollow = async (userId) => {
     try {
       await unfollowUser(userId);
-      setFollowing(following.filter(id => id !== userId));
+      setFollowing(following.filter(u => u.id !== userId));
     } catch (error) {
       console.error("Error unfollowing user:", error);
     }
@@ -102,33 +116,31 @@ const ExploreSection = ({ user }) => {
             <p className="text-gray-500">Not following anyone yet.</p>
           ) : (
             <ul className="space-y-4">
-              {following.map((userId) => {
-                // In a real app, you would have the full user object
-                const user = recommendedUsers.find(u => u.id === userId) || {
-                  id: userId,
-                  name: `User ${userId}`,
-                  email: `user${userId}@example.com`
-                };
-                
-                return (
-                  <li key={userId} className="flex items-center justify-between space-x-4 border-b pb-4 last:border-b-0">
-                    <div className="flex items-center space-x-4">
-                      <Avatar src={user.photo || "https://via.placeholder.com/150"} alt={user.name} />
-                      <div>
-                        <div className="font-semibold text-gray-800">{user.name}</div>
-                        <div className="text-xs text-gray-500">@{user.email.split('@')[0]}</div>
-                      </div>
+              {following.map((user) => (
+                <li key={user.id} className="flex items-center justify-between space-x-4 border-b pb-4 last:border-b-0">
+                  <div className="flex items-center space-x-4">
+                    <Avatar src={user.photo || "https://via.placeholder.com/150"} alt={user.name} />
+                    <div>
+                      <div className="font-semibold text-gray-800">{user.name}</div>
+                      <div className="text-xs text-gray-500">{user.followerCount} followers</div>
                     </div>
-                    <Button
-                      variant="outlined"
-                      size="small"
-                      onClick={() => handleUnfollow(userId)}
-                    >
-                      Unfollow
-                    </Button>
-                  </li>
-                );
-              })}
+                  </div>
+                  <Button
+                    variant="outlined"
+                    size="small"
+                    onClick={() => handleUnfollow(user.id)}
+                  >
+                    Unfollow
+                  </Button>
+                </li>
+              ))}
+              {followingCursor && (
+                <li className="flex justify-center">
+                  <Button size="small" onClick={loadMoreFollowing}>
+                    Load more
+                  </Button>
+                </li>
+              )}
             </ul>
           )
         )}
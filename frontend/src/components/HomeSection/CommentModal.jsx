@@ -43,6 +43,8 @@ export default function CommentModal({ open, handleClose, post = {}, user = {} }
     const [editingCommentId, setEditingCommentId] = useState(null);
     const [isDeleting, setIsDeleting] = useState(false);
     const [isLoadingComments, setIsLoadingComments] = useState(false);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [isLoadingMore, setIsLoadingMore] = useState(false);
 
     const openMenu = Boolean(anchorEl);
     const openEmojiPicker = Boolean(emojiAnchorEl);
@@ -81,6 +83,7 @@ export default function CommentModal({ open, handleClose, post = {}, user = {} }
         try {
             const response = await getCommentsByPostId(post.id);
             setComments(response.data);
+            setNextCursor(response.nextCursor);
         } catch (error) {
             console.error("Failed to load comments:", error);
         } finally {
@@ -88,6 +91,20 @@ export default function CommentModal({ open, handleClose, post = {}, user = {} }
         }
     }, [post.id]);
 
+    // Appends the next page after the comments already shown
+    const loadMoreComments = async () => {
+        setIsLoadingMore(true);
+        try {
+            const response = await getCommentsByPostId(post.id, nextCursor);
+            setComments(prev => [...prev, ...response.data]);
+            setNextCursor(response.nextCursor);
+        } catch (error) {
+            console.error("Failed to load more comments:", error);
+        } finally {
+            setIsLoadingMore(false);
+        }
+    };
+
     useEffect(() => {
         if (open && post?.id) {
             loadComments();
@@ -335,6 +352,18 @@ export default function CommentModal({ open, handleClose, post = {}, user = {} }
                                 No comments yet. Be the first to comment!
                             </div>
                         )}
+                        {!isLoadingComments && nextCursor && (
+                            <div className="flex justify-center">
+                                <Button
+                                    size="small"
+                                    sx={{ textTransform: "none" }}
+                                    onClick={loadMoreComments}
+                                    disabled={isLoadingMore}
+                                >
+                                    {isLoadingMore ? <CircularProgress size={16} /> : "Load more comments"}
+                                </Button>
+                            </div>
+                        )}
                     </div>
                 </section>
             </Box>
@@ -21,7 +21,7 @@ import { IconButton, Menu, MenuItem, TextField } from "@mui/material";
 import CommentModal from "./CommentModal";
 
 const PostCard = ({ post, user, refreshPosts }) => {
-  const [isLiked, setIsLiked] = useState(post.likedBy.includes(user?.id));
+  const [isLiked, setIsLiked] = useState(post.likedByMe);
   const [likeCount, setLikeCount] = useState(post.likesCount);
   const [showComments, setShowComments] = useState(false);
   const [commentContent, setCommentContent] = useState("");
@@ -97,8 +97,8 @@ const PostCard = ({ post, user, refreshPosts }) => {
     <div className="border-b border-gray-200 p-4 hover:bg-gray-50 transition-colors">
       <div className="flex space-x-3">
         <Avatar 
-          src={post.user?.photo || "https://via.placeholder.com/150"} 
-          alt={post.user?.name}
+          src={post.authorPhoto || "https://via.placeholder.com/150"} 
+          alt={post.authorName}
           onClick={() => navigate(`/profile/${post.userId}`)}
           className="cursor-pointer hover:opacity-80"
           sx={{ width: 48, height: 48 }}
@@ -107,7 +107,7 @@ const PostCard = ({ post, user, refreshPosts }) => {
           <div className="flex justify-between items-start">
             <div className="flex items-center space-x-1">
               <span className="font-bold hover:underline cursor-pointer">
-                {post.user?.name}
+                {post.authorName}
               </span>
               <span className="text-gray-500 text-sm">
                 @{post.user?.email.split('@')[0]}
@@ -215,7 +215,7 @@ const PostCard = ({ post, user, refreshPosts }) => {
           onClick={handleCommentModalOpen} // open comment modal
         >
           <ChatBubbleOutline fontSize="small" />
-          <span>{post.comments?.length || 0}</span>
+          <span>{post.commentCount || 0}</span>
         </button>
         <button className="flex items-center space-x-1 hover:text-green-500">
               <Repeat fontSize="small" />
@@ -3,7 +3,7 @@ import logo from "../../assets/logo.png";
 import { NavigationMenu } from "../Navigation/NavigationMenu";
 import { useNavigate } from "react-router";
 import { Button, Avatar, Badge } from "@mui/material";
-import { getUnreadCount } from "../../api"; // Import the API function
+import { getUnreadCount, openNotificationStream } from "../../api"; // Import the API functions
 
 const Navigation = ({ user, setCurrentSection, currentSection, onLogout }) => {
   const [unreadCount, setUnreadCount] = useState(0);
@@ -19,11 +19,42 @@ const Navigation = ({ user, setCurrentSection, currentSection, onLogout }) => {
       }
     };
     
-    // Fetch immediately and then every 30 seconds
+    // Fetch immediately, then let the server push changes
     fetchUnreadCount();
-    const interval = setInterval(fetchUnreadCount, 30000);
-    
-    return () => clearInterval(interval);
+    // A ticket is single-use, so the browser's own reconnect (same URL) would be refused;
+    // on any error the stream is closed and reopened with a fresh ticket instead
+    let stream = null;
+    let retry = null;
+    let closed = false;
+    const connect = () => {
+      openNotificationStream()
+        .then((opened) => {
+          if (!opened) return;
+          if (closed) {
+            opened.close();
+            return;
+          }
+          stream = opened;
+          stream.addEventListener("unread-count", (event) => {
+            setUnreadCount(Number(event.data));
+          });
+          stream.onerror = () => {
+            opened.close();
+            if (!closed) retry = setTimeout(connect, 5000);
+          };
+        })
+        .catch((error) => {
+          console.error("Failed to open notification stream:", error);
+          if (!closed) retry = setTimeout(connect, 30000);
+        });
+    };
+    connect();
+
+    return () => {
+      closed = true;
+      clearTimeout(retry);
+      if (stream) stream.close();
+    };
   }, []);
 
   const handleClose = () => {
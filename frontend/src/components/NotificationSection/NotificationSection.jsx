@@ -1,6 +1,7 @@
 import React, { useState, useEffect } from "react";
 import { 
   getNotifications, 
+  getUnreadCount,
   markNotificationAsRead, 
   markAllNotificationsAsRead 
 } from "../../api";
@@ -19,17 +20,22 @@ const NotificationSection = () => {
   const [loading, setLoading] = useState(true);
   const [unreadCount, setUnreadCount] = useState(0);
   const [showAll, setShowAll] = useState(true);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     fetchNotifications();
-  }, []);
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [showAll]);
 
+  // First page of the inbox (or of unread only); older pages come from loadMore
   const fetchNotifications = async () => {
     try {
       setLoading(true);
-      const response = await getNotifications();
-      setNotifications(response.data || response);
-      setUnreadCount((response.data || response).filter(n => !n.isRead).length);
+      const [page, count] = await Promise.all([getNotifications(null, !showAll), getUnreadCount()]);
+      setNotifications(page.items);
+      setNextCursor(page.nextCursor);
+      setUnreadCount(count);
     } catch (error) {
       console.error("Failed to fetch notifications:", error);
     } finally {
@@ -37,13 +43,26 @@ const NotificationSection = () => {
     }
   };
 
+  const loadMore = async () => {
+    try {
+      setLoadingMore(true);
+      const page = await getNotifications(nextCursor, !showAll);
+      setNotifications(prev => [...prev, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      console.error("Failed to load more notifications:", error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleMarkAsRead = async (notificationId) => {
     try {
       await markNotificationAsRead(notificationId);
       setNotifications(notifications.map(n => 
         n.id === notificationId ? { ...n, isRead: true } : n
       ));
-      setUnreadCount(prev => prev - 1);
+      setUnreadCount(prev => Math.max(prev - 1, 0));
     } catch (error) {
       console.error("Failed to mark notification as read:", error);
     }
@@ -51,9 +70,10 @@ const NotificationSection = () => {
 
   const handleMarkAllAsRead = async () => {
     try {
-      await markAllNotificationsAsRead();
+      // Only up to the newest one shown, so anything that arrived since stays unread
+      await markAllNotificationsAsRead(notifications[0]?.createdAt);
       setNotifications(notifications.map(n => ({ ...n, isRead: true })));
-      setUnreadCount(0);
+      setUnreadCount(await getUnreadCount());
     } catch (error) {
       console.error("Failed to mark all notifications as read:", error);
     }
@@ -151,6 +171,17 @@ const NotificationSection = () => {
             ))}
           </ul>
         )}
+        {!loading && nextCursor && (
+          <div className="flex justify-center py-2">
+            <button
+              onClick={loadMore}
+              disabled={loadingMore}
+              className="text-blue-600 hover:underline text-sm"
+            >
+              {loadingMore ? "Loading..." : "Load older notifications"}
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );